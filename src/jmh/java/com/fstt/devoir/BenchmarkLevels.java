@@ -0,0 +1,37 @@
+package com.fstt.devoir;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Corpus fixe des bancs d'essai : les deux grilles de Main ("test1", "test2")
+ * et les niveaux de corpus.xsb, repérés par leur titre.
+ */
+final class BenchmarkLevels {
+
+    private BenchmarkLevels() {
+    }
+
+    static String[] grid(String name) {
+        if (name.equals("test1")) {
+            return Main.TEST1;
+        }
+        if (name.equals("test2")) {
+            return Main.TEST2;
+        }
+        try (XsbReader reader = new XsbReader(new InputStreamReader(
+                BenchmarkLevels.class.getResourceAsStream("corpus.xsb"), StandardCharsets.UTF_8))) {
+            XsbReader.Entry entry;
+            while ((entry = reader.next()) != null) {
+                if (entry.name.equals(name)) {
+                    return entry.toGrid();
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        throw new IllegalArgumentException("Niveau inconnu : " + name);
+    }
+}
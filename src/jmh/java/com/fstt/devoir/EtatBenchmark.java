@@ -0,0 +1,85 @@
+package com.fstt.devoir;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Bancs d'essai des opérations élémentaires d'un nœud (chemins chauds de la recherche).
+ * * Chaque opération est mesurée sur un échantillon d'états : l'état initial et
+ * les états atteints en quelques poussées, parcourus à tour de rôle.
+ * * Débit en opérations/s ; avec '-prof gc', octets alloués par opération.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EtatBenchmark {
+
+    // Taille maximale de l'échantillon d'états
+    private static final int SAMPLE = 64;
+
+    @Param({"test1", "test2", "microban-6", "six-boxes", "seven-boxes"})
+    public String level;
+
+    private SearchContext ctx;
+    private Etat[] states;
+    private int next;
+
+    @Setup
+    public void setup() {
+        Level niveau = Level.parse(BenchmarkLevels.grid(level));
+        ctx = new SearchContext(niveau);
+
+        // Parcours en largeur depuis l'état initial jusqu'à SAMPLE états
+        List<Etat> sample = new ArrayList<>();
+        sample.add(new Etat(niveau));
+        for (int i = 0; i < sample.size() && sample.size() < SAMPLE; i++) {
+            for (Etat successor : sample.get(i).generateSuccessors(ctx)) {
+                if (sample.size() < SAMPLE) {
+                    sample.add(successor);
+                }
+            }
+        }
+        states = sample.toArray(new Etat[0]);
+    }
+
+    private Etat nextState() {
+        Etat etat = states[next];
+        next = next + 1 == states.length ? 0 : next + 1;
+        return etat;
+    }
+
+    @Benchmark
+    public List<Etat> generateSuccessors() {
+        return nextState().generateSuccessors(ctx);
+    }
+
+    @Benchmark
+    public long[] getUniqueKey() {
+        return nextState().getUniqueKey();
+    }
+
+    @Benchmark
+    public int calculateHeuristic() {
+        return nextState().calculateHeuristic(ctx);
+    }
+
+    @Benchmark
+    public boolean isGoal() {
+        return nextState().isGoal();
+    }
+}
@@ -0,0 +1,48 @@
+package com.fstt.devoir;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Banc d'essai d'une résolution complète, pour chaque moteur sur le corpus fixe.
+ * * L'analyse de la grille (Level.parse) fait partie de la mesure, comme dans
+ * un lot ; l'affichage n'en fait pas partie (SokobanSolver.solve(Level, ...)).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SolveBenchmark {
+
+    @Param({"test1", "test2", "microban-1", "microban-3", "microban-5", "microban-6", "six-boxes", "seven-boxes"})
+    public String level;
+
+    @Param({"ASTAR", "IDA_STAR", "PARALLEL_ASTAR", "BIDIRECTIONAL"})
+    public SolverOptions.Algorithm algorithm;
+
+    private String[] grid;
+    private SolverOptions options;
+
+    @Setup
+    public void setup() {
+        grid = BenchmarkLevels.grid(level);
+        options = new SolverOptions().algorithm(algorithm);
+    }
+
+    @Benchmark
+    public SolverResult solve() {
+        return SokobanSolver.solve(Level.parse(grid, options.unlabeledBoxes), options);
+    }
+}
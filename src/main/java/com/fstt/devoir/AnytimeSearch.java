@@ -0,0 +1,257 @@
+package com.fstt.devoir;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Moteur "anytime" : A* pondéré réparateur (ARA*).
+ * * Une première solution est cherchée avec f = g + w·h (w = SolverOptions.anytimeWeight) :
+ * l'heuristique est surpondérée, la recherche fonce vers le but et trouve vite
+ * une solution, au plus w fois plus longue que l'optimum. Puis w diminue
+ * (anytimeWeightStep) jusqu'à 1 et chaque tour améliore la solution en
+ * réutilisant l'openList, le meilleur g de chaque état et les états améliorés
+ * après leur développement (liste 'incons'), au lieu de tout recommencer.
+ * * Après chaque tour, borne prouvée : la solution a au plus 'bound' fois le
+ * nombre optimal de poussées, avec bound = poussées / min(g + h) sur les états
+ * encore en attente (h admissible). bound = 1 : la solution est optimale.
+ * * Chaque solution améliorée est publiée (SearchListener.onSolution) dès
+ * qu'elle est trouvée, sans attendre la fin du tour, avec une borne prouvée
+ * obtenue en O(1) (plus petit g + h ajouté à l'openList et à 'incons' depuis
+ * le début du tour) ; la fin d'un tour, qui calcule min(g + h) sur les états
+ * vraiment en attente, ne publie que si elle resserre cette borne. La recherche peut être
+ * arrêtée à tout moment (SolverOptions.timeLimitMillis,
+ * interruption du thread) : la meilleure solution trouvée est alors gardée.
+ */
+final class AnytimeSearch {
+
+    private final SearchContext ctx;
+    private final SearchBudget budget;
+    private final SearchListener listener;
+    private final long start = System.nanoTime();
+    private final double weightStep;
+    private double weight;
+
+    private final ClosedSet bestG;  // Meilleur g connu de chaque état
+    private final ClosedSet closed; // Tour où chaque état a été développé pour la dernière fois
+    private BucketOpenList open; // Clé : f pondéré arrondi à l'entier inférieur (voir key)
+    private List<Etat> incons = new ArrayList<>(); // Améliorés après leur développement dans ce tour
+    private int inconsMinCost = Integer.MAX_VALUE;  // Plus petit f_cost de 'incons'
+    private int round;
+    private Etat incumbent; // Meilleure solution trouvée
+
+    // Solutions successives : triplets (ms depuis le début, poussées, borne inférieure prouvée),
+    // la borne de la dernière étant relevée à la fin de chaque tour
+    private long[] solutions = new long[3 * 8];
+    private int solutionsLength;
+
+    public long exploredNodes = 0; // Métrique: Nombre de nœuds explorés
+
+    public AnytimeSearch(Level level, SolverOptions options) {
+        this.ctx = new SearchContext(level);
+        this.budget = new SearchBudget(options);
+        this.listener = options.listener;
+        this.weight = Math.max(1, options.anytimeWeight);
+        this.weightStep = options.anytimeWeightStep;
+        this.bestG = new ClosedSet(level.keyWords);
+        this.closed = new ClosedSet(level.keyWords);
+    }
+
+    public long[] progress() {
+        return budget.progress();
+    }
+
+    public boolean wasAborted() {
+        return budget.wasExceeded();
+    }
+
+    public SearchContext context() {
+        return ctx;
+    }
+
+    /**
+     * Solutions successives : triplets (ms depuis le début, poussées, borne
+     * inférieure prouvée du nombre optimal de poussées).
+     */
+    public long[] solutions() {
+        return Arrays.copyOf(solutions, solutionsLength);
+    }
+
+    /**
+     * Borne prouvée de la dernière solution (poussées / borne inférieure), 0 sans solution.
+     */
+    public double bound() {
+        if (solutionsLength == 0) {
+            return 0;
+        }
+        return (double) solutions[solutionsLength - 2] / Math.max(1, solutions[solutionsLength - 1]);
+    }
+
+    /**
+     * Lance la recherche depuis l'état initial.
+     * @return La meilleure solution trouvée (optimale si bound() == 1), ou
+     *         'null' si le niveau est insoluble ou si la recherche a été
+     *         interrompue avant la première solution (voir wasAborted).
+     */
+    public Etat search(Etat etatInitial) {
+        if (etatInitial.h_cost >= MinCostMatching.INF) {
+            return null; // Aucune affectation caisses -> cibles possible
+        }
+        bestG.improve(etatInitial.getUniqueKey(), etatInitial.getZobristHash(), 0);
+        open = new BucketOpenList();
+        open.add(etatInitial, key(etatInitial));
+        while (true) {
+            round++;
+            improvePath();
+            List<Etat> waiting = drainWaiting();
+            int lowerBound = lowerBound(waiting);
+            if (incumbent != null && lowerBound > solutions[solutionsLength - 1]) {
+                raiseBound(lowerBound);
+            }
+            if (budget.wasExceeded()) {
+                return incumbent;
+            }
+            if (incumbent != null && lowerBound >= incumbent.g_cost) {
+                return incumbent; // Optimalité prouvée
+            }
+            if (waiting.isEmpty()) {
+                return null; // Tous les états atteignables ont été développés
+            }
+            // Tour suivant : poids diminué, états en attente reclassés
+            weight = Math.max(1, weight - weightStep);
+            for (Etat etat : waiting) {
+                open.add(etat, key(etat));
+            }
+        }
+    }
+
+    /**
+     * Un tour d'A* pondéré : développe les états tant que leur f pondéré est
+     * inférieur au nombre de poussées de la meilleure solution.
+     */
+    private void improvePath() {
+        while (!open.isEmpty()) {
+            if (incumbent != null && open.peekF() >= incumbent.g_cost) {
+                break; // Aucun état en attente ne peut améliorer la solution à ce poids
+            }
+            Etat current = open.poll();
+            if (isStale(current)) {
+                ctx.metrics.staleSkipped++;
+                continue;
+            }
+            exploredNodes++;
+            if (budget.isExceeded(exploredNodes)) {
+                // Remis en attente : la borne de fin de tour doit en tenir compte
+                open.add(current, key(current));
+                return;
+            }
+            if (current.isGoal()) {
+                incumbent = current; // f pondéré = g : strictement meilleure
+                // Borne en O(1) (minima tenus à jour), resserrée en fin de tour
+                publish(Math.min(incumbent.g_cost, Math.min(open.minCost(), inconsMinCost)));
+                continue;
+            }
+
+            closed.put(current.getUniqueKey(), round);
+            for (Etat next : current.generateSuccessors(ctx)) {
+                // Ne peut pas mener à une solution plus courte que la meilleure
+                if (incumbent != null && next.f_cost >= incumbent.g_cost) {
+                    continue;
+                }
+                long[] key = next.getUniqueKey();
+                if (!bestG.improve(key, next.getZobristHash(), next.g_cost)) {
+                    ctx.metrics.duplicates++;
+                } else if (closed.get(key) == round) {
+                    incons.add(next); // Déjà développé dans ce tour : au tour suivant
+                    inconsMinCost = Math.min(inconsMinCost, next.f_cost);
+                } else {
+                    open.add(next, key(next));
+                }
+            }
+            ctx.metrics.updatePeaks(open.size() + incons.size(), bestG.size());
+            budget.isFull(open.size() + incons.size() + (long) bestG.size(), 1);
+        }
+    }
+
+    /**
+     * Vide l'openList et 'incons'.
+     * @return Les états encore en attente (entrées périmées retirées)
+     */
+    private List<Etat> drainWaiting() {
+        List<Etat> waiting = new ArrayList<>(open.size() + incons.size());
+        for (Etat etat : open.drain()) {
+            if (!isStale(etat)) {
+                waiting.add(etat);
+            }
+        }
+        for (Etat etat : incons) {
+            if (!isStale(etat)) {
+                waiting.add(etat);
+            }
+        }
+        incons = new ArrayList<>();
+        inconsMinCost = Integer.MAX_VALUE;
+        return waiting;
+    }
+
+    /**
+     * Plus petit g + h des états en attente, borné par la meilleure solution :
+     * aucune solution n'a moins de poussées.
+     */
+    private int lowerBound(List<Etat> waiting) {
+        int bound = incumbent != null ? incumbent.g_cost : MinCostMatching.INF;
+        return Math.min(bound, minCost(waiting));
+    }
+
+    private static int minCost(List<Etat> etats) {
+        int min = Integer.MAX_VALUE;
+        for (Etat etat : etats) {
+            min = Math.min(min, etat.f_cost);
+        }
+        return min;
+    }
+
+    /**
+     * Enregistre et publie une nouvelle meilleure solution.
+     * @param lowerBound Borne inférieure prouvée à cet instant
+     */
+    private void publish(int lowerBound) {
+        long elapsed = System.nanoTime() - start;
+        if (solutionsLength == solutions.length) {
+            solutions = Arrays.copyOf(solutions, solutionsLength * 2);
+        }
+        solutions[solutionsLength++] = elapsed / 1_000_000;
+        solutions[solutionsLength++] = incumbent.g_cost;
+        solutions[solutionsLength++] = lowerBound;
+        if (listener != null) {
+            listener.onSolution(incumbent, bound(), elapsed);
+        }
+    }
+
+    /**
+     * Fin d'un tour : la borne de la dernière solution est relevée et republiée.
+     */
+    private void raiseBound(int lowerBound) {
+        solutions[solutionsLength - 1] = lowerBound;
+        if (listener != null) {
+            listener.onSolution(incumbent, bound(), System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Entrée périmée : l'état a été retrouvé depuis avec un meilleur g.
+     */
+    private boolean isStale(Etat etat) {
+        return etat.g_cost > bestG.bestCost(etat.getUniqueKey(), etat.getZobristHash());
+    }
+
+    /**
+     * Clé de l'openList : f pondéré g + w·h du tour, arrondi à l'entier
+     * inférieur (à clé égale, le plus grand g sort d'abord). L'arrêt d'un
+     * tour (clé >= poussées de la solution) reste exact : clé >= G entier
+     * implique g + w·h >= G.
+     */
+    private int key(Etat etat) {
+        return (int) (etat.g_cost + weight * etat.h_cost);
+    }
+}
@@ -0,0 +1,106 @@
+package com.fstt.devoir;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Lanceur par lots : résout toute une collection de niveaux XSB et écrit
+ * une ligne de résultat par niveau (séparateur : tabulation) :
+ * numéro, nom, statut (solved / unsolved / timeout / error), poussées,
+ * mouvements, nœuds explorés, temps en ms.
+ * * Les niveaux sont lus en flux (XsbReader) et résolus en parallèle
+ * (BatchSolver) : la mémoire utilisée ne dépend pas de la taille de la collection.
+ * * Usage : java com.fstt.devoir.BatchRunner <fichier.xsb | -> [ASTAR|IDA_STAR|...]
+ *           [--parallel=N] [--time=ms] [--nodes=N] [--states=N] [--json=metriques.jsonl]
+ *           [--scratch=dossier] [--pdb[=dossier]] [--tunnels] [--corrals] [--weight=w]
+ *           [--solutions=fichier] [--lurd[=rle]]
+ * * --states : limite mémoire d'une résolution, en états gardés à la fois
+ *   (openList + closedList) ; au-delà, le niveau est marqué "timeout".
+ * * --json : métriques détaillées de chaque niveau, une ligne JSON par niveau.
+ * * --scratch : dossier de travail de EXTERNAL_ASTAR (par défaut, java.io.tmpdir).
+ * * --pdb : heuristique avec la base de motifs des paires, mise en cache dans 'dossier'.
+ * * --tunnels : macro-poussées dans les tunnels.
+ * * --corrals : élagage par corral PI.
+ * * --weight : poids initial de h du moteur ANYTIME (avec --time, la meilleure
+ *   solution trouvée dans le temps imparti).
+ * * --solutions : base persistante des solutions (niveaux déjà résolus relus).
+ * * --lurd : une ligne par niveau, la solution seule au format LURD ('-' sans
+ *   solution) ; --lurd=rle compte les répétitions (ex: "3rU").
+ */
+public class BatchRunner {
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 1) {
+            System.err.println("Usage : BatchRunner <fichier.xsb | -> [algorithme]"
+                    + " [--parallel=N] [--time=ms] [--nodes=N] [--states=N] [--json=fichier]"
+                    + " [--scratch=dossier] [--pdb[=dossier]] [--tunnels] [--corrals] [--weight=w]"
+                    + " [--solutions=fichier] [--lurd[=rle]]");
+            System.exit(2);
+        }
+        SolverOptions options = new SolverOptions();
+        int parallelism = Runtime.getRuntime().availableProcessors();
+        String jsonPath = null;
+        String lurd = null; // Format de sortie : null, "" ou "rle"
+        for (int i = 1; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.startsWith("--parallel=")) {
+                parallelism = Integer.parseInt(arg.substring("--parallel=".length()));
+            } else if (arg.startsWith("--time=")) {
+                options.timeLimitMillis(Long.parseLong(arg.substring("--time=".length())));
+            } else if (arg.startsWith("--json=")) {
+                jsonPath = arg.substring("--json=".length());
+            } else if (arg.startsWith("--scratch=")) {
+                options.scratchDir(arg.substring("--scratch=".length()));
+            } else if (arg.startsWith("--weight=")) {
+                options.anytimeWeight(Double.parseDouble(arg.substring("--weight=".length())));
+            } else if (arg.equals("--lurd") || arg.startsWith("--lurd=")) {
+                lurd = arg.substring("--lurd".length()).replace("=", "");
+            } else if (arg.startsWith("--solutions=")) {
+                options.solutionStore(SolutionStore.open(arg.substring("--solutions=".length())));
+            } else if (arg.equals("--tunnels")) {
+                options.tunnelMacros(true);
+            } else if (arg.equals("--corrals")) {
+                options.corralPruning(true);
+            } else if (arg.equals("--pdb")) {
+                options.patternDatabase(true);
+            } else if (arg.startsWith("--pdb=")) {
+                options.patternDatabase(true).patternCacheDir(arg.substring("--pdb=".length()));
+            } else if (arg.startsWith("--nodes=")) {
+                options.nodeLimit(Long.parseLong(arg.substring("--nodes=".length())));
+            } else if (arg.startsWith("--states=")) {
+                options.stateLimit(Long.parseLong(arg.substring("--states=".length())));
+            } else {
+                options.algorithm(SolverOptions.Algorithm.valueOf(arg.toUpperCase()));
+            }
+        }
+        // Les niveaux se partagent déjà les cœurs : un thread par résolution HDA*
+        if (parallelism > 1) {
+            options.threads(1);
+        }
+
+        PrintWriter out = new PrintWriter(new BufferedWriter(
+                new OutputStreamWriter(System.out, StandardCharsets.UTF_8)));
+        PrintWriter json = jsonPath == null ? null
+                : new PrintWriter(Files.newBufferedWriter(Path.of(jsonPath), StandardCharsets.UTF_8));
+        try (XsbReader reader = XsbReader.open(args[0])) {
+            BatchSolver solver = new BatchSolver(options, parallelism).exportJson(json);
+            if (lurd != null) {
+                solver.movesOnly(lurd.equals("rle"));
+            }
+            solver.run(reader, out);
+        } finally {
+            if (json != null) {
+                json.close();
+            }
+            if (options.solutionStore != null) {
+                options.solutionStore.close();
+            }
+        }
+        out.flush();
+    }
+}
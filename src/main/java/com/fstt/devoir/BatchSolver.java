@@ -0,0 +1,173 @@
+package com.fstt.devoir;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Service de résolution par lots en parallèle.
+ * * Les niveaux sont résolus en même temps sur un pool de 'parallelism'
+ * threads. Chaque résolution est bornée par les limites de SolverOptions
+ * (timeLimitMillis, nodeLimit, stateLimit pour la mémoire) : un niveau
+ * pathologique donne "timeout" au lieu de bloquer le lot ou d'épuiser la
+ * mémoire partagée avec les autres niveaux, et un niveau dont la résolution
+ * échoue (exception) donne "error".
+ * * La lecture reste en flux : au plus 2 * parallelism niveaux sont en cours
+ * (ou en attente d'écriture) à la fois. Les lignes de résultat sont écrites
+ * dans l'ordre de la collection (voir BatchRunner pour le format).
+ * * En option (exportJson), les métriques détaillées de chaque niveau sont
+ * aussi écrites en JSON (JsonMetricsExporter), une ligne par niveau.
+ */
+class BatchSolver {
+
+    private final SolverOptions options;
+    private final int parallelism;
+    private PrintWriter json; // Export JSON des métriques, ou null
+    private boolean movesOnly; // Une ligne par niveau : la solution LURD seule
+    private boolean runLength; // Solution LURD avec répétitions comptées
+
+    // Bilan du dernier lot
+    private int levels, solved, unsolved, timeouts, errors;
+
+    public BatchSolver(SolverOptions options, int parallelism) {
+        this.options = options;
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * Écrit aussi les métriques de chaque niveau en JSON dans 'json'.
+     */
+    public BatchSolver exportJson(PrintWriter json) {
+        this.json = json;
+        return this;
+    }
+
+    /**
+     * N'écrit, pour chaque niveau, que sa solution au format LURD ("-" sans
+     * solution) au lieu de la ligne de résultat.
+     * @param runLength 'true' : répétitions comptées (ex: "3rU")
+     */
+    public BatchSolver movesOnly(boolean runLength) {
+        this.movesOnly = true;
+        this.runLength = runLength;
+        return this;
+    }
+
+    /**
+     * Résout tous les niveaux du flux et écrit une ligne par niveau, puis une
+     * ligne de bilan (commentaire '#') avec le débit en niveaux résolus par minute.
+     */
+    public void run(XsbReader reader, PrintWriter out) throws IOException, InterruptedException {
+        levels = solved = unsolved = timeouts = errors = 0;
+        long debut = System.nanoTime();
+        out.println(movesOnly ? "# solution (LURD) de chaque niveau, '-' sans solution"
+                : "# niveau\tnom\tstatut\tpoussées\tmouvements\tnœuds\tms");
+
+        ExecutorService pool = Executors.newFixedThreadPool(parallelism, task -> {
+            Thread thread = new Thread(task, "batch-solver");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ArrayDeque<Future<Outcome>> pending = new ArrayDeque<>();
+        try {
+            XsbReader.Entry entry;
+            while ((entry = reader.next()) != null) {
+                if (pending.size() >= 2 * parallelism) {
+                    write(pending.poll(), out);
+                }
+                XsbReader.Entry level = entry;
+                pending.add(pool.submit(() -> solve(level)));
+            }
+            while (!pending.isEmpty()) {
+                write(pending.poll(), out);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        double minutes = Math.max(1e-9, (System.nanoTime() - debut) / 60e9);
+        out.println("# " + levels + " niveaux : " + solved + " résolus, " + unsolved + " insolubles, "
+                + timeouts + " timeout, " + errors + " erreurs en " + Math.round(minutes * 60_000) + " ms ("
+                + Math.round(solved / minutes) + " niveaux résolus/min)");
+        out.flush();
+    }
+
+    /**
+     * Résout un niveau (dans un thread du pool). Un niveau invalide, ou dont
+     * la résolution échoue (fichiers de travail, cache de motifs...), donne
+     * une ligne "error" sans arrêter le lot.
+     */
+    private Outcome solve(XsbReader.Entry entry) {
+        SolverResult result;
+        try {
+            result = SokobanSolver.solve(SokobanSolver.analyze(entry.toGrid(), options), options);
+        } catch (IllegalArgumentException e) {
+            return error(entry, e.getMessage());
+        } catch (RuntimeException | StackOverflowError e) {
+            return error(entry, e.toString());
+        }
+        // Mouvements : une lettre LURD par pas (sans créer une String par action)
+        String lurd = result.lurd(false);
+        int moves = lurd != null ? lurd.length() : -1;
+        String metrics = json != null ? JsonMetricsExporter.toJson(entry.number, entry.name, result, moves) : null;
+        String line = !movesOnly ? formatLine(entry, result, moves)
+                : lurd == null ? "-" : runLength ? result.lurd(true) : lurd;
+        return new Outcome(result.status(), line, metrics);
+    }
+
+    private Outcome error(XsbReader.Entry entry, String message) {
+        // Le message tient sur la ligne du niveau (colonnes séparées par des tabulations)
+        String text = String.valueOf(message).replaceAll("\\s+", " ");
+        return new Outcome("error", movesOnly ? "-" : entry.number + "\t" + entry.name + "\terror\t" + text, null);
+    }
+
+    static String formatLine(XsbReader.Entry entry, SolverResult result, int moves) {
+        if (!result.isSolved()) {
+            return entry.number + "\t" + entry.name + "\t" + result.status() + "\t-\t-\t"
+                    + result.exploredNodes + "\t" + result.millis;
+        }
+        return entry.number + "\t" + entry.name + "\tsolved\t" + result.goal.g_cost + "\t" + moves + "\t"
+                + result.exploredNodes + "\t" + result.millis;
+    }
+
+    private void write(Future<Outcome> future, PrintWriter out) throws InterruptedException {
+        Outcome outcome;
+        try {
+            outcome = future.get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Échec d'une résolution", e.getCause());
+        }
+        levels++;
+        switch (outcome.status) {
+            case "solved" -> solved++;
+            case "unsolved" -> unsolved++;
+            case "timeout" -> timeouts++;
+            default -> errors++;
+        }
+        out.println(outcome.line);
+        out.flush(); // Une ligne visible dès que le niveau est terminé
+        if (json != null && outcome.metrics != null) {
+            json.println(outcome.metrics);
+            json.flush();
+        }
+    }
+
+    /**
+     * Résultat d'un niveau : statut, ligne à écrire et métriques JSON (ou null).
+     */
+    private static class Outcome {
+        final String status;
+        final String line;
+        final String metrics;
+
+        Outcome(String status, String line, String metrics) {
+            this.status = status;
+            this.line = line;
+            this.metrics = metrics;
+        }
+    }
+}
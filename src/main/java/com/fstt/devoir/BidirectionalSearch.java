@@ -0,0 +1,230 @@
+package com.fstt.devoir;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Moteur A* bidirectionnel : poussées depuis l'état initial, tirées depuis
+ * les configurations finales.
+ * * Recherche arrière : elle part de toutes les configurations gagnantes
+ * (une caisse sur chaque cible, le joueur dans chacune des zones libres)
+ * et TIRE les caisses (Etat.generatePullSuccessors). Son heuristique est
+ * l'affectation des caisses à leurs cases de départ (Level.computeBoxDistances).
+ * * Les deux recherches se rencontrent sur une même clé. Les configurations
+ * finales n'ayant pas de noms de caisses, la clé utilisée est la clé
+ * "sans noms" (Etat.getUnlabeledKey) : les caisses y sont triées par case.
+ * * Arrêt : soit μ le coût de la meilleure rencontre ; aucun chemin ne peut
+ * faire mieux dès que μ <= max(f minimal avant, f minimal arrière).
+ * La solution est alors optimale (heuristiques admissibles).
+ * * Ne s'applique qu'aux niveaux ayant autant de cibles que de caisses.
+ */
+class BidirectionalSearch {
+
+    private final Level level;
+    private final Side forward;
+    private final Side backward;
+    private final SearchBudget budget;
+
+    // Meilleure rencontre connue : coût total et état de chaque côté
+    private int bestCost = MinCostMatching.INF;
+    private Etat meetForward;
+    private Etat meetBackward;
+
+    public BidirectionalSearch(Level level, SolverOptions options) {
+        this.level = level;
+        this.budget = new SearchBudget(options);
+        this.forward = new Side(new SearchContext(level), true);
+        this.backward = new Side(new SearchContext(level, level.computeBoxDistances()), false);
+        forward.other = backward;
+        backward.other = forward;
+    }
+
+    /**
+     * La recherche arrière part de configurations où toutes les cibles sont occupées.
+     */
+    public static boolean supports(Level level) {
+        return level.boxCount() == level.targetCells.length;
+    }
+
+    /**
+     * Lance les deux recherches.
+     * @return L'état final (gagnant) de coût optimal, ou 'null' si aucune
+     *         solution (ou si la recherche a été interrompue, voir wasAborted).
+     */
+    public Etat search(Etat etatInitial) {
+        forward.offer(etatInitial);
+        for (Etat goal : goalStates()) {
+            backward.offer(goal);
+        }
+
+        while (!forward.openList.isEmpty() && !backward.openList.isEmpty()) {
+            int bound = Math.max(forward.openList.peek().f_cost, backward.openList.peek().f_cost);
+            if (bestCost <= bound) {
+                break; // Aucun chemin restant ne peut améliorer la rencontre
+            }
+            if (budget.isExceeded(forward.expanded + backward.expanded)) {
+                return null;
+            }
+            // Développer le côté dont la frontière est la plus petite
+            Side side = forward.openList.size() <= backward.openList.size() ? forward : backward;
+            side.expandNext();
+        }
+        return meetForward != null ? stitch() : null;
+    }
+
+    public boolean wasAborted() {
+        return budget.wasExceeded();
+    }
+
+    public long forwardExpanded() {
+        return forward.expanded;
+    }
+
+    public long backwardExpanded() {
+        return backward.expanded;
+    }
+
+    /**
+     * Compteurs détaillés des deux sens de recherche.
+     */
+    public SearchMetrics metrics() {
+        SearchMetrics total = new SearchMetrics();
+        total.add(forward.ctx.metrics);
+        total.add(backward.ctx.metrics);
+        return total;
+    }
+
+    public long[] progress() {
+        return budget.progress();
+    }
+
+    public long prunedPushes() {
+        return forward.ctx.prunedPushes + backward.ctx.prunedPushes;
+    }
+
+    /**
+     * Configurations finales : la caisse i sur la cible i (les noms n'ont pas
+     * d'importance, voir getUnlabeledKey) et le joueur dans une zone libre.
+     * Un état par zone (la clé ne retient que la zone du joueur).
+     */
+    private List<Etat> goalStates() {
+        short[] boxes = new short[level.targetCells.length];
+        boolean[] visited = new boolean[level.cells];
+        for (int i = 0; i < boxes.length; i++) {
+            boxes[i] = (short) level.targetCells[i];
+            visited[boxes[i]] = true;
+        }
+
+        List<Etat> goals = new ArrayList<>();
+        int[] queue = new int[level.cells];
+        for (int start = 0; start < level.cells; start++) {
+            if (visited[start] || level.isWall(start)) {
+                continue;
+            }
+            goals.add(new Etat(level, boxes.clone(), start, backward.ctx));
+            // Marquer toute la zone
+            int head = 0, tail = 0;
+            visited[start] = true;
+            queue[tail++] = start;
+            while (head < tail) {
+                int cell = queue[head++];
+                for (int d = 0; d < 4; d++) {
+                    int next = cell + level.dirOffsets[d];
+                    if (!visited[next] && !level.isWall(next)) {
+                        visited[next] = true;
+                        queue[tail++] = next;
+                    }
+                }
+            }
+        }
+        return goals;
+    }
+
+    /**
+     * Recolle les deux moitiés : la chaîne avant jusqu'à la rencontre, puis
+     * chaque tirage de la chaîne arrière rejoué comme une poussée en sens inverse.
+     * Les caisses gardent leurs noms : elles sont retrouvées par leur case.
+     */
+    private Etat stitch() {
+        Etat etat = meetForward;
+        for (Etat pulled = meetBackward; pulled.parent != null; pulled = pulled.parent) {
+            // 'pulled' vient de son parent en tirant une caisse vers 'pushDir' :
+            // la repousser dans la direction opposée ramène au parent.
+            int cell = pulled.boxes[pulled.pushBox];
+            etat = etat.applyPush(etat.boxIndexAt(cell), pulled.pushDir ^ 1);
+        }
+        return etat;
+    }
+
+    /**
+     * Un côté de la recherche : openList, meilleur état connu par clé.
+     */
+    private class Side {
+        final SearchContext ctx;
+        final boolean isForward;
+        Side other;
+
+        final PriorityQueue<Etat> openList = new PriorityQueue<>();
+        // Clé sans noms -> indice dans 'states' de l'état de plus petit g
+        final ClosedSet index = new ClosedSet(level.keyWords);
+        final List<Etat> states = new ArrayList<>();
+        long expanded = 0;
+
+        Side(SearchContext ctx, boolean isForward) {
+            this.ctx = ctx;
+            this.isForward = isForward;
+        }
+
+        /**
+         * Ajoute un état s'il est nouveau ou atteint avec un meilleur g,
+         * puis vérifie s'il rencontre l'autre recherche.
+         */
+        void offer(Etat etat) {
+            if (etat.f_cost >= MinCostMatching.INF) {
+                return;
+            }
+            long[] key = etat.getUnlabeledKey();
+            int i = index.get(key);
+            if (i >= 0) {
+                if (states.get(i).g_cost <= etat.g_cost) {
+                    ctx.metrics.duplicates++;
+                    return;
+                }
+                states.set(i, etat);
+            } else {
+                index.put(key, states.size());
+                states.add(etat);
+            }
+            openList.add(etat);
+
+            int j = other.index.get(key);
+            if (j >= 0) {
+                Etat match = other.states.get(j);
+                if (etat.g_cost + match.g_cost < bestCost) {
+                    bestCost = etat.g_cost + match.g_cost;
+                    meetForward = isForward ? etat : match;
+                    meetBackward = isForward ? match : etat;
+                }
+            }
+        }
+
+        void expandNext() {
+            Etat current = openList.poll();
+            // Entrée périmée : l'état a été retrouvé depuis avec un meilleur g
+            if (states.get(index.get(current.getUnlabeledKey())) != current) {
+                ctx.metrics.staleSkipped++;
+                return;
+            }
+            expanded++;
+            List<Etat> next = isForward ? current.generateSuccessors(ctx) : current.generatePullSuccessors(ctx);
+            for (Etat etat : next) {
+                offer(etat);
+            }
+            ctx.metrics.updatePeaks(openList.size(), index.size());
+            // Limite mémoire : états des deux côtés
+            budget.isFull((long) forward.openList.size() + forward.index.size()
+                    + backward.openList.size() + backward.index.size(), 1);
+        }
+    }
+}
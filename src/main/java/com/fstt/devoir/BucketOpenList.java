@@ -0,0 +1,136 @@
+package com.fstt.devoir;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * openList de A* à seaux (remplace la PriorityQueue, un tas binaire).
+ * * f et g sont de petits entiers : les états sont rangés dans un seau par
+ * couple (f, g). Ajout et retrait en O(1) (amorti), sans comparaison.
+ * * Ordre de sortie : le plus petit f, puis le plus GRAND g (les nœuds les
+ * plus profonds d'abord, qui mènent plus vite au but à f égal).
+ * Dans un même seau, le dernier ajouté sort le premier.
+ * * La clé 'f' peut aussi être fournie par l'appelant (add(etat, f)), ex: le
+ * f pondéré, arrondi, du moteur ANYTIME.
+ */
+class BucketOpenList {
+
+    // buckets[f][g] : pile des états de coûts (f, g), créée à la demande
+    private Etat[][][] buckets = new Etat[64][][];
+    private int[][] sizes = new int[64][];
+    private int[] countByF = new int[64]; // Nombre d'états de coût f
+    private int[] maxGByF = new int[64];  // Borne supérieure du plus grand g non vide pour f
+    private int minF = Integer.MAX_VALUE; // Borne inférieure du plus petit f non vide
+    private int minCost = Integer.MAX_VALUE; // Plus petit f_cost ajouté depuis le dernier drain (voir minCost)
+    private int size = 0;
+
+    public void add(Etat etat) {
+        add(etat, etat.f_cost);
+    }
+
+    /**
+     * Ajoute un état avec la clé 'f' au lieu de son f_cost.
+     */
+    public void add(Etat etat, int f) {
+        int g = etat.g_cost;
+        if (f >= buckets.length) {
+            int capacity = Math.max(f + 1, buckets.length * 2);
+            buckets = Arrays.copyOf(buckets, capacity);
+            sizes = Arrays.copyOf(sizes, capacity);
+            countByF = Arrays.copyOf(countByF, capacity);
+            maxGByF = Arrays.copyOf(maxGByF, capacity);
+        }
+        if (buckets[f] == null || g >= buckets[f].length) {
+            int capacity = Math.max(g + 1, f + 1);
+            buckets[f] = buckets[f] == null ? new Etat[capacity][] : Arrays.copyOf(buckets[f], capacity);
+            sizes[f] = sizes[f] == null ? new int[capacity] : Arrays.copyOf(sizes[f], capacity);
+        }
+        Etat[] stack = buckets[f][g];
+        int n = sizes[f][g];
+        if (stack == null) {
+            stack = buckets[f][g] = new Etat[8];
+        } else if (n == stack.length) {
+            stack = buckets[f][g] = Arrays.copyOf(stack, n * 2);
+        }
+        stack[n] = etat;
+        sizes[f][g] = n + 1;
+
+        if (countByF[f]++ == 0 || g > maxGByF[f]) {
+            maxGByF[f] = g;
+        }
+        if (f < minF) {
+            minF = f;
+        }
+        if (etat.f_cost < minCost) {
+            minCost = etat.f_cost;
+        }
+        size++;
+    }
+
+    /**
+     * Retire l'état de plus petit f (puis de plus grand g).
+     * @return L'état, ou 'null' si la liste est vide.
+     */
+    public Etat poll() {
+        if (size == 0) {
+            return null;
+        }
+        int f = peekF();
+        int g = maxGByF[f];
+        while (sizes[f][g] == 0) {
+            g--;
+        }
+        maxGByF[f] = g;
+
+        int n = --sizes[f][g];
+        Etat etat = buckets[f][g][n];
+        buckets[f][g][n] = null; // Laisser le GC récupérer l'état
+        countByF[f]--;
+        size--;
+        return etat;
+    }
+
+    /**
+     * Plus petite clé f de la liste (non vide).
+     */
+    public int peekF() {
+        while (countByF[minF] == 0) {
+            minF++;
+        }
+        return minF;
+    }
+
+    /**
+     * Borne inférieure du f_cost des états de la liste, quand la clé n'est
+     * pas f_cost (ex: f pondéré), en O(1) : le plus petit f_cost ajouté
+     * depuis le dernier drain. Les états déjà retirés ne peuvent que
+     * l'abaisser : elle reste une borne inférieure.
+     * @return La borne, ou Integer.MAX_VALUE si rien n'a été ajouté
+     */
+    public int minCost() {
+        return minCost;
+    }
+
+    /**
+     * Vide la liste.
+     * @return Tous les états qu'elle contenait (dans un ordre quelconque)
+     */
+    public List<Etat> drain() {
+        List<Etat> etats = new ArrayList<>(size);
+        Etat etat;
+        while ((etat = poll()) != null) {
+            etats.add(etat);
+        }
+        minCost = Integer.MAX_VALUE;
+        return etats;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+}
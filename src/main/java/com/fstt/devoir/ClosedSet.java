@@ -0,0 +1,197 @@
+package com.fstt.devoir;
+
+import java.util.Arrays;
+
+/**
+ * Ensemble des états déjà explorés (la 'closedList' de A*).
+ * * Remplace le 'HashSet<String>' : chaque état est identifié par sa clé
+ * compacte (voir Etat.getUniqueKey()), un petit tableau de 'long' de taille fixe.
+ * * Les clés sont rangées "à plat" dans un seul 'long[]' (adressage ouvert,
+ * sondage linéaire) : aucun objet n'est alloué par état visité.
+ * * Chaque clé peut aussi porter un coût (le meilleur g connu), utilisé par
+ * les moteurs qui doivent rouvrir un état atteint plus tard par un meilleur chemin.
+ * * Le hachage de la clé peut être fourni par l'appelant (hachage de Zobrist
+ * de l'état, voir Etat.getZobristHash) ; sinon il est calculé à partir de la clé.
+ * Il est gardé pour chaque case : la clé complète n'est comparée que si les
+ * hachages sont égaux, et l'agrandissement de la table ne recalcule rien.
+ */
+class ClosedSet {
+
+    // Taux de remplissage maximal avant d'agrandir la table
+    private static final double MAX_LOAD = 0.5;
+
+    private final int keyWords; // Nombre de 'long' par clé
+    private long[] table;       // capacity * keyWords cases
+    private long[] hashes;      // Hachage de la clé de chaque case
+    private int[] costs;        // Meilleur g connu pour chaque case
+    private int capacity;       // Toujours une puissance de 2
+    private int size;
+
+    public ClosedSet(int keyWords) {
+        this(keyWords, 1 << 16);
+    }
+
+    public ClosedSet(int keyWords, int initialCapacity) {
+        this.keyWords = keyWords;
+        this.capacity = Integer.highestOneBit(Math.max(16, initialCapacity - 1) << 1);
+        this.table = new long[capacity * keyWords];
+        this.hashes = new long[capacity];
+        this.costs = new int[capacity];
+    }
+
+    /**
+     * Ajoute une clé.
+     * @return 'true' si la clé était absente (état nouveau), 'false' sinon.
+     */
+    public boolean add(long[] key) {
+        return add(key, hash(key));
+    }
+
+    public boolean add(long[] key, long hash) {
+        int slot = findSlot(table, hashes, capacity, key, hash);
+        if (table[slot * keyWords] != 0) {
+            return false; // Déjà présent
+        }
+        insert(slot, key, hash, 0);
+        return true;
+    }
+
+    /**
+     * Ajoute la clé avec le coût 'g', ou abaisse le coût déjà mémorisé.
+     * @return 'true' si la clé était absente ou si 'g' est strictement meilleur.
+     */
+    public boolean improve(long[] key, int g) {
+        return improve(key, hash(key), g);
+    }
+
+    public boolean improve(long[] key, long hash, int g) {
+        int slot = findSlot(table, hashes, capacity, key, hash);
+        if (table[slot * keyWords] != 0) {
+            if (g >= costs[slot]) {
+                return false;
+            }
+            costs[slot] = g;
+            return true;
+        }
+        insert(slot, key, hash, g);
+        return true;
+    }
+
+    /**
+     * Meilleur coût mémorisé pour la clé, ou -1 si elle est absente.
+     */
+    public int bestCost(long[] key) {
+        return bestCost(key, hash(key));
+    }
+
+    public int bestCost(long[] key, long hash) {
+        int slot = findSlot(table, hashes, capacity, key, hash);
+        return table[slot * keyWords] != 0 ? costs[slot] : -1;
+    }
+
+    /**
+     * Valeur associée à la clé (voir 'put'), ou -1 si elle est absente.
+     */
+    public int get(long[] key) {
+        return bestCost(key);
+    }
+
+    /**
+     * Associe la valeur 'value' à la clé (ajout ou remplacement), par exemple
+     * l'indice de l'état dans une liste tenue à côté.
+     */
+    public void put(long[] key, int value) {
+        long hash = hash(key);
+        int slot = findSlot(table, hashes, capacity, key, hash);
+        if (table[slot * keyWords] == 0) {
+            insert(slot, key, hash, value);
+        } else {
+            costs[slot] = value;
+        }
+    }
+
+    /**
+     * Vérifie si une clé a déjà été ajoutée.
+     */
+    public boolean contains(long[] key) {
+        return contains(key, hash(key));
+    }
+
+    public boolean contains(long[] key, long hash) {
+        return table[findSlot(table, hashes, capacity, key, hash) * keyWords] != 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void insert(int slot, long[] key, long hash, int cost) {
+        System.arraycopy(key, 0, table, slot * keyWords, keyWords);
+        hashes[slot] = hash;
+        costs[slot] = cost;
+        size++;
+        if (size > capacity * MAX_LOAD) {
+            grow();
+        }
+    }
+
+    /**
+     * Retourne la case contenant 'key', ou la première case vide rencontrée.
+     * Une case est vide si son premier mot vaut 0 : le premier mot d'une clé
+     * contient toujours la position du joueur (+1), il n'est donc jamais nul.
+     */
+    private int findSlot(long[] tab, long[] hashTab, int cap, long[] key, long hash) {
+        int mask = cap - 1;
+        int slot = (int) hash & mask;
+        while (true) {
+            int base = slot * keyWords;
+            if (tab[base] == 0 || (hashTab[slot] == hash
+                    && Arrays.equals(tab, base, base + keyWords, key, 0, keyWords))) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /**
+     * Double la capacité et réinsère toutes les clés (avec leur hachage mémorisé).
+     */
+    private void grow() {
+        int newCapacity = capacity << 1;
+        long[] newTable = new long[newCapacity * keyWords];
+        long[] newHashes = new long[newCapacity];
+        int[] newCosts = new int[newCapacity];
+        long[] key = new long[keyWords];
+        for (int slot = 0; slot < capacity; slot++) {
+            int base = slot * keyWords;
+            if (table[base] != 0) {
+                System.arraycopy(table, base, key, 0, keyWords);
+                int newSlot = findSlot(newTable, newHashes, newCapacity, key, hashes[slot]);
+                System.arraycopy(key, 0, newTable, newSlot * keyWords, keyWords);
+                newHashes[newSlot] = hashes[slot];
+                newCosts[newSlot] = costs[slot];
+            }
+        }
+        table = newTable;
+        hashes = newHashes;
+        costs = newCosts;
+        capacity = newCapacity;
+    }
+
+    /**
+     * Mélange les mots de la clé (finaliseur de MurmurHash3), quand aucun
+     * hachage de Zobrist n'est disponible (ex: clés "sans noms").
+     */
+    static long hash(long[] key) {
+        long h = 0;
+        for (long word : key) {
+            h ^= word;
+            h ^= h >>> 33;
+            h *= 0xff51afd7ed558ccdL;
+            h ^= h >>> 33;
+            h *= 0xc4ceb9fe1a85ec53L;
+            h ^= h >>> 33;
+        }
+        return h;
+    }
+}
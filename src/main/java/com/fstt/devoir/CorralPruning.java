@@ -0,0 +1,150 @@
+package com.fstt.devoir;
+
+import java.util.Arrays;
+
+/**
+ * Élagage par corral PI (SolverOptions.corralPruning), appelé par
+ * Etat.generateSuccessors sur la zone accessible au joueur.
+ * * Corral : zone que le joueur ne peut pas atteindre, avec les caisses qui
+ * la bordent (parcours des cases ni murs ni accessibles, caisses comprises).
+ * Il n'est bordé que de murs et de caisses du corral : tant qu'aucune de ses
+ * caisses ne bouge, les poussées faites ailleurs ne le changent pas.
+ * * Corral PI : il contient une caisse hors cible (il faudra y toucher) et
+ * toutes les poussées possibles de ses caisses le font entrer dans le
+ * corral. La première poussée d'une caisse du corral, dans toute solution,
+ * est alors l'une d'elles, possible dès maintenant : elle peut être jouée
+ * en premier sans allonger la solution (la zone accessible ne fait que
+ * grandir). Seules les poussées du corral le plus petit (en poussées) sont
+ * donc générées ; l'optimalité est conservée.
+ * * Corral sans issue : une caisse hors cible et aucune poussée possible.
+ * Les poussées faites ailleurs n'y changeront rien : l'état est élagué.
+ */
+final class CorralPruning {
+
+    static final int NONE = 0;       // Pas de corral PI : toutes les poussées
+    static final int RESTRICTED = 1; // Seules les poussées des caisses de 'corralBoxes'
+    static final int DEADLOCK = 2;   // Corral sans issue : aucun successeur
+
+    private final Level level;
+    private final int[] region; // Marques des corrals (une marque par corral parcouru)
+    private int regionStamp;
+    private final int[] queue;
+    private final int[] members; // Caisses du corral en cours d'examen
+    private int memberCount;
+    private boolean offTarget;   // Une caisse du corral en cours n'est pas sur une cible
+
+    // corralBoxes[i] : la caisse i appartient au corral PI retenu (verdict RESTRICTED)
+    final boolean[] corralBoxes;
+
+    CorralPruning(Level level) {
+        this.level = level;
+        this.region = new int[level.cells];
+        this.queue = new int[level.cells];
+        this.members = new int[level.boxCount()];
+        this.corralBoxes = new boolean[level.boxCount()];
+    }
+
+    /**
+     * Cherche les corrals de l'état (caisses placées dans 'boxAt', zone
+     * accessible marquée dans 'reachMark').
+     * @return NONE, RESTRICTED (voir corralBoxes) ou DEADLOCK
+     */
+    int analyze(short[] boxes, int[] boxAt, int[] reachMark, int reachStamp) {
+        if (regionStamp > Integer.MAX_VALUE - boxes.length - 1) {
+            Arrays.fill(region, 0);
+            regionStamp = 0;
+        }
+        int first = regionStamp + 1; // Marques des corrals de cet appel
+        int verdict = NONE;
+        int bestPushes = Integer.MAX_VALUE;
+        for (int i = 0; i < boxes.length; i++) {
+            // Chaque corral est parcouru une fois, depuis une caisse de sa bordure
+            int seed = boxes[i];
+            if (region[seed] >= first || !touches(seed, reachMark, reachStamp)) {
+                continue;
+            }
+            flood(seed, ++regionStamp, boxAt, reachMark, reachStamp);
+            if (!offTarget) {
+                continue; // Corral déjà rangé : aucune poussée n'y est nécessaire
+            }
+            int pushes = countPushes(boxes, boxAt, reachMark, reachStamp);
+            if (pushes == 0) {
+                return DEADLOCK;
+            }
+            if (pushes > 0 && pushes < bestPushes) {
+                bestPushes = pushes;
+                verdict = RESTRICTED;
+                Arrays.fill(corralBoxes, false);
+                for (int k = 0; k < memberCount; k++) {
+                    corralBoxes[members[k]] = true;
+                }
+            }
+        }
+        return verdict;
+    }
+
+    /**
+     * Vrai si une case voisine de 'cell' est accessible au joueur.
+     */
+    private boolean touches(int cell, int[] reachMark, int reachStamp) {
+        for (int offset : level.dirOffsets) {
+            if (reachMark[cell + offset] == reachStamp) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Marque le corral contenant 'seed' et relève ses caisses (members).
+     */
+    private void flood(int seed, int stamp, int[] boxAt, int[] reachMark, int reachStamp) {
+        int head = 0, tail = 0;
+        memberCount = 0;
+        offTarget = false;
+        region[seed] = stamp;
+        queue[tail++] = seed;
+        while (head < tail) {
+            int cell = queue[head++];
+            if (boxAt[cell] >= 0) {
+                members[memberCount++] = boxAt[cell];
+                if (!level.isTarget(cell)) {
+                    offTarget = true;
+                }
+            }
+            for (int offset : level.dirOffsets) {
+                int next = cell + offset;
+                if (region[next] != stamp && !level.isWall(next) && reachMark[next] != reachStamp) {
+                    region[next] = stamp;
+                    queue[tail++] = next;
+                }
+            }
+        }
+    }
+
+    /**
+     * Poussées possibles des caisses du corral (joueur derrière la caisse,
+     * case d'arrivée libre et non morte).
+     * @return Leur nombre, ou -1 si l'une d'elles ne fait pas entrer la
+     *         caisse dans le corral (corral non PI)
+     */
+    private int countPushes(short[] boxes, int[] boxAt, int[] reachMark, int reachStamp) {
+        int[] off = level.dirOffsets;
+        int pushes = 0;
+        for (int k = 0; k < memberCount; k++) {
+            int box = boxes[members[k]];
+            for (int d = 0; d < 4; d++) {
+                int target = box + off[d];
+                if (reachMark[box - off[d]] != reachStamp || level.isWall(target)
+                        || boxAt[target] >= 0 || level.isDead(target)) {
+                    continue;
+                }
+                if (reachMark[target] == reachStamp) {
+                    return -1;
+                }
+                pushes++;
+            }
+        }
+        return pushes;
+    }
+}
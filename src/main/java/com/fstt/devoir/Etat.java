@@ -7,21 +7,27 @@ import java.util.*;
  * * Un état est défini par :
  * 1. La position du Joueur.
  * 2. L'ensemble des positions de TOUTES les caisses.
+ * * Représentation "à plat" : les cases sont des indices (r * cols + c) et
+ * la partie statique (murs, cibles, tables précalculées) est partagée via
+ * le Level. Un état n'alloue qu'un seul petit tableau : 'boxes'.
+ * La grille visuelle (char[][]) n'est construite qu'à l'affichage (getBoard).
  */
 class Etat implements Comparable<Etat> {
 
-    // --- Variables Statiques (partagées par tous les états) ---
-    // Grille statique contenant Murs (■) et Cibles (T). Ne change jamais.
-    private static char[][] STATIC_BOARD;
-    // Ensemble des positions des Cibles. Ne change jamais.
-    private static Set<Position> TARGETS = new HashSet<>();
-    private static int ROWS;
-    private static int COLS;
+    // --- Partie statique (partagée par tous les états du niveau) ---
+    public final Level level;
 
     // --- Variables d'Instance (uniques à cet état) ---
-    public char[][] board; // Grille visuelle de cet état (avec joueur et caisses)
-    public int playerR, playerC; // Position du joueur
-    public Set<BoxPosition> boxCoords; // Ensemble des positions ET NOMS des caisses
+    public final short[] boxes; // Case de chaque caisse (caisse i = level.boxNames[i]),
+                                // triées si les caisses sont interchangeables
+    public final int player;    // Case du joueur
+    // Position normalisée du joueur : la case accessible la plus en haut à gauche.
+    // Deux états qui ne diffèrent que par la place du joueur dans la même zone
+    // ont la même clé.
+    private int normalizedPlayer;
+    // Hachage de Zobrist de la clé (caisses + position normalisée du joueur),
+    // mis à jour par quelques XOR à chaque poussée
+    private long zobrist;
 
     // --- Coûts A* ---
     public int g_cost; // Coût (Nombre de POUSSÉES depuis le début)
@@ -29,126 +35,158 @@ class Etat implements Comparable<Etat> {
     public int f_cost; // Coût total (f = g + h)
 
     // --- Traçabilité ---
-    public Etat parent; // L'état précédent (pour reconstruire le chemin)
-    public String action; // L'action qui a mené à CET état (ex: "PUSH 'a' UP")
+    public Etat parent;      // L'état précédent (pour reconstruire le chemin)
+    public int pushBox = -1; // Caisse poussée pour arriver à CET état (indice dans 'boxes')
+    public int pushDir = -1; // Indice dans DIRS de cette poussée
+    public int pushSteps = 1; // Nombre de poussées (> 1 : macro-poussée dans un tunnel)
+    // Pointeur arrière compact (A*, voir PathTable) : 'parent' reste alors 'null'
+    public int parentId = -1;  // Numéro du parent dans la PathTable
+    public short move = -1;    // Code de la poussée depuis le parent (PathTable.moveCode)
 
     /**
-     * Constructeur Initial (pour le premier état).
-     * Analyse la grille, sépare les éléments statiques (murs, cibles)
-     * des éléments mobiles (joueur, caisses).
+     * Constructeur Initial (pour le premier état du niveau).
      */
-    public Etat(String[] level) {
-        this.ROWS = level.length;
-        this.COLS = level[0].length();
-        this.board = new char[ROWS][COLS];
-        this.boxCoords = new HashSet<>();
-
-        // Initialise les champs statiques (STATIC_BOARD, TARGETS)
-        // si c'est la première fois qu'on crée un état.
-        if (STATIC_BOARD == null) {
-            STATIC_BOARD = new char[ROWS][COLS];
-
-            for (int r = 0; r < ROWS; r++) {
-                for (int c = 0; c < COLS; c++) {
-                    char cell = level[r].charAt(c);
-
-                    if (cell == SokobanSolver.WALL) {
-                        STATIC_BOARD[r][c] = SokobanSolver.WALL;
-                    } else if (cell == SokobanSolver.TARGET || cell == SokobanSolver.PLAYER_ON_TARGET || (cell >= 'A' && cell <= 'D')) {
-                        // Si c'est une cible, ou un objet SUR une cible
-                        STATIC_BOARD[r][c] = SokobanSolver.TARGET;
-                        TARGETS.add(new Position(r, c));
-                    } else {
-                        // C'est un sol vide (□, @, ou $)
-                        STATIC_BOARD[r][c] = SokobanSolver.FLOOR;
-                    }
-                }
-            }
-        }
+    public Etat(Level level) {
+        this(level, level.initialBoxes.clone(), level.initialPlayer, new SearchContext(level));
+    }
 
-        // Analyse les éléments MOBILES (Joueur, Caisses)
-        for (int r = 0; r < ROWS; r++) {
-            for (int c = 0; c < COLS; c++) {
-                char cell = level[r].charAt(c);
-
-                if (cell == SokobanSolver.PLAYER || cell == SokobanSolver.PLAYER_ON_TARGET) {
-                    this.playerR = r;
-                    this.playerC = c;
-                    this.board[r][c] = STATIC_BOARD[r][c] == SokobanSolver.TARGET ? SokobanSolver.PLAYER_ON_TARGET : SokobanSolver.PLAYER;
-                } else if (SokobanSolver.isBoxSymbol(cell)) {
-                    // Ajoute la caisse à l'ensemble des caisses
-                    this.boxCoords.add(new BoxPosition(r, c, SokobanSolver.getBoxName(cell)));
-                    // Met le bon symbole sur la grille (ex: 'A' si sur cible)
-                    this.board[r][c] = STATIC_BOARD[r][c] == SokobanSolver.TARGET ? SokobanSolver.BOX_TO_TARGET_MAP.get(SokobanSolver.getBoxName(cell)) : SokobanSolver.getBoxName(cell);
-                } else {
-                    // C'est un mur ou un sol
-                    this.board[r][c] = STATIC_BOARD[r][c];
-                }
-            }
+    /**
+     * Constructeur d'une configuration de départ quelconque (0 poussée),
+     * ex: une configuration finale pour la recherche arrière.
+     * @param ctx Fournit les distances utilisées pour h
+     */
+    Etat(Level level, short[] boxes, int player, SearchContext ctx) {
+        this.level = level;
+        this.boxes = boxes;
+        this.player = player;
+
+        ctx.placeBoxes(boxes);
+        this.normalizedPlayer = normalizePlayer(ctx, player);
+        ctx.clearBoxes(boxes);
+
+        // Hachage complet, une seule fois : les états suivants le mettent à jour
+        this.zobrist = level.zobristPlayer(normalizedPlayer);
+        for (int i = 0; i < boxes.length; i++) {
+            this.zobrist ^= level.zobristBox(i, boxes[i]);
         }
 
         // Initialise les coûts A* pour l'état de départ
         this.g_cost = 0; // 0 poussée au début
-        this.h_cost = calculateHeuristic();
+        this.h_cost = calculateHeuristic(ctx);
         this.f_cost = this.g_cost + this.h_cost;
         this.parent = null;
-        this.action = null;
     }
 
     /**
-     * Constructeur de copie (pour créer un état voisin).
-     * Crée une copie profonde de l'état 'other'.
+     * Constructeur d'un état voisin, obtenu par une poussée depuis 'parent'.
+     */
+    private Etat(Etat parent, short[] boxes, int player, int pushBox, int pushDir) {
+        this.level = parent.level;
+        this.boxes = boxes;
+        this.player = player;
+        this.parent = parent;
+        this.pushBox = pushBox;
+        this.pushDir = pushDir;
+        this.g_cost = parent.g_cost + 1; // Une poussée coûte 1
+    }
+
+    /**
+     * Génère une clé unique compacte pour cet état.
+     * Les indices de case (+1) du joueur (position normalisée) puis de chaque
+     * caisse (dans l'ordre de leurs noms) sont empaquetés dans un petit tableau de 'long'.
+     * Ex (grille 10x10, 7 bits par case): [joueur | a | b | c | d] -> 1 seul 'long'.
+     * Avec des caisses interchangeables, 'boxes' est trié : les permutations
+     * des caisses donnent la même clé.
+     * Permet au ClosedSet (closedList) de fonctionner sans créer de String.
+     */
+    public long[] getUniqueKey() {
+        return packKey(boxes);
+    }
+
+    /**
+     * Hachage de Zobrist de la clé : XOR d'une valeur aléatoire par caisse
+     * (selon sa case) et d'une valeur pour la position normalisée du joueur.
+     * Calculé en O(1) à partir du parent (generateSuccessors). Sert à ranger
+     * la clé dans le ClosedSet ou la TranspositionTable, la clé complète
+     * restant comparée en cas d'égalité des hachages.
+     */
+    public long getZobristHash() {
+        return zobrist;
+    }
+
+    /**
+     * Hachage du successeur : la caisse 'box' passe de 'from' à 'to' et la
+     * position normalisée du joueur devient 'player'.
+     */
+    private long childHash(int box, int from, int to, int player) {
+        return zobrist
+                ^ level.zobristBox(box, from) ^ level.zobristBox(box, to)
+                ^ level.zobristPlayer(normalizedPlayer) ^ level.zobristPlayer(player);
+    }
+
+    /**
+     * Clé "sans noms" : les caisses sont rangées par case croissante.
+     * Deux états qui ne diffèrent que par les noms des caisses ont la même clé ;
+     * utilisée par la recherche bidirectionnelle, dont les configurations
+     * finales n'ont pas de noms (n'importe quelle caisse sur n'importe quelle cible).
      */
-    public Etat(Etat other) {
-        this.parent = other; // Le parent est l'état 'other'
-        this.g_cost = other.g_cost; // g_cost sera incrémenté si PUSH
-
-        // Copie simple
-        this.playerR = other.playerR;
-        this.playerC = other.playerC;
-
-        // Copie profonde de la grille (board)
-        this.board = new char[ROWS][COLS];
-        for (int i = 0; i < ROWS; i++) {
-            System.arraycopy(other.board[i], 0, this.board[i], 0, COLS);
+    public long[] getUnlabeledKey() {
+        if (!level.labeled) {
+            return packKey(boxes); // Déjà trié
         }
+        short[] sorted = boxes.clone();
+        Arrays.sort(sorted);
+        return packKey(sorted);
+    }
 
-        // Copie profonde de l'ensemble des caisses (boxCoords)
-        this.boxCoords = new HashSet<>();
-        for (BoxPosition box : other.boxCoords) {
-            // BoxPosition est immuable, on peut le copier directement
-            this.boxCoords.add(box);
+    private long[] packKey(short[] cells) {
+        long[] key = new long[level.keyWords];
+        putCell(key, 0, normalizedPlayer + 1);
+        for (int i = 0; i < cells.length; i++) {
+            putCell(key, 1 + i, cells[i] + 1);
         }
+        return key;
     }
 
     /**
-     * Génère une clé unique (String) pour cet état.
-     * Ex: "P(5,4)_B(a,3,2)_B(b,3,6)..."
-     * Permet au HashSet (closedList) de fonctionner.
+     * Écrit la valeur d'une case à la position 'slot' de la clé.
      */
-    public String getUniqueKey() {
-        StringBuilder sb = new StringBuilder();
-        sb.append("P").append(playerR).append(",").append(playerC);
+    private void putCell(long[] key, int slot, int value) {
+        int shift = (slot % level.cellsPerWord) * level.bitsPerCell;
+        key[slot / level.cellsPerWord] |= (long) value << shift;
+    }
 
-        // Trier les caisses par nom est crucial pour que la clé soit
-        // la même quel que soit l'ordre d'insertion.
-        List<BoxPosition> sortedBoxes = new ArrayList<>(boxCoords);
-        Collections.sort(sortedBoxes); // Utilise 'compareTo' de BoxPosition
+    /**
+     * Lit la valeur écrite par putCell à la position 'slot' de la clé.
+     */
+    private static int getCell(Level level, long[] key, int slot) {
+        int shift = (slot % level.cellsPerWord) * level.bitsPerCell;
+        return (int) (key[slot / level.cellsPerWord] >>> shift) & ((1 << level.bitsPerCell) - 1);
+    }
 
-        for (BoxPosition c : sortedBoxes) {
-            sb.append("_B").append(c.name).append("(").append(c.r).append(",").append(c.c).append(")");
+    /**
+     * Reconstruit un état à partir de sa clé compacte (voir getUniqueKey),
+     * ex: une clé relue sur disque par la recherche externe. Le joueur est
+     * placé sur sa position normalisée ; l'état n'a pas de parent.
+     * @param g Nombre de poussées depuis le début
+     */
+    static Etat fromKey(Level level, long[] key, int g, SearchContext ctx) {
+        short[] boxes = new short[level.boxCount()];
+        for (int i = 0; i < boxes.length; i++) {
+            boxes[i] = (short) (getCell(level, key, 1 + i) - 1);
         }
-        return sb.toString();
+        Etat etat = new Etat(level, boxes, getCell(level, key, 0) - 1, ctx);
+        etat.g_cost = g;
+        etat.f_cost = g + etat.h_cost;
+        return etat;
     }
 
     /**
      * Vérifie si c'est un état de victoire (toutes les caisses sur des cibles).
      */
     public boolean isGoal() {
-        // Le but est atteint si TOUTES les positions des caisses
-        // sont DANS l'ensemble des positions des CIBLES.
-        for (BoxPosition box : boxCoords) {
-            if (!TARGETS.contains(new Position(box.r, box.c))) {
+        for (short box : boxes) {
+            if (!level.isTarget(box)) {
                 return false; // Une caisse n'est pas sur une cible
             }
         }
@@ -156,147 +194,478 @@ class Etat implements Comparable<Etat> {
     }
 
     /**
-     * Calcule l'heuristique h(n) (Somme des distances de Manhattan).
-     * Estime le "coût restant" (nombre min de poussées) pour gagner.
+     * Calcule l'heuristique h(n) : affectation de coût minimal des caisses
+     * aux cibles (chaque cible ne sert qu'une fois), avec les vraies distances
+     * de poussée (Level.pushDistances). Admissible : ne surestime jamais.
+     * Avec une base de motifs (Level.patterns), le maximum des deux bornes.
+     * @return h(n), ou une valeur >= MinCostMatching.INF si l'état est sans issue.
      */
-    private int calculateHeuristic() {
-        int h = 0;
+    public int calculateHeuristic(SearchContext ctx) {
+        return ctx.withPatterns(ctx.matchBoxes(boxes), boxes);
+    }
 
-        // Pour chaque caisse...
-        for (BoxPosition box : boxCoords) {
-            int minManhattan = Integer.MAX_VALUE;
-
-            // ...trouver la distance à la CIBLE la plus proche
-            for (Position target : TARGETS) {
-                // Si la caisse est déjà sur cette cible, la distance est 0
-                if (box.r == target.r && box.c == target.c) {
-                    minManhattan = 0;
-                    break;
-                }
+    /**
+     * L'action qui a mené à CET état (ex: "PUSH 'a' UP"), 'null' pour l'état initial.
+     * Construite seulement à l'affichage.
+     */
+    public String getAction() {
+        if (pushDir < 0) {
+            return null;
+        }
+        return "PUSH '" + level.boxNames[pushBox] + "' " + SokobanSolver.DIR_NAMES[pushDir];
+    }
+
+    /**
+     * Grille visuelle de cet état (avec joueur et caisses), construite à la demande.
+     */
+    public char[][] getBoard() {
+        return level.render(player, boxes);
+    }
 
-                // Distance de Manhattan: |x1 - x2| + |y1 - y2|
-                int manhattan = Math.abs(box.r - target.r) + Math.abs(box.c - target.c);
-                if (manhattan < minManhattan) {
-                    minManhattan = manhattan;
+    /**
+     * Vérifie si une case est libre (ni mur, ni caisse) d'après ctx.boxAt.
+     */
+    private boolean isFree(SearchContext ctx, int cell) {
+        return !level.isWall(cell) && ctx.boxAt[cell] < 0;
+    }
+
+    /**
+     * Marque (parcours en largeur) les cases accessibles au joueur depuis 'start'
+     * sans pousser de caisse (caisses lues dans ctx.boxAt).
+     * @return La plus petite case accessible (position normalisée du joueur).
+     */
+    private int markReachable(SearchContext ctx, int start, int[] mark, int stamp) {
+        int[] queue = ctx.queue;
+        int head = 0, tail = 0;
+        mark[start] = stamp;
+        queue[tail++] = start;
+        int min = start;
+
+        while (head < tail) {
+            int cell = queue[head++];
+            if (cell < min) {
+                min = cell;
+            }
+            for (int d = 0; d < 4; d++) {
+                int next = cell + level.dirOffsets[d];
+                if (mark[next] != stamp && isFree(ctx, next)) {
+                    mark[next] = stamp;
+                    queue[tail++] = next;
                 }
             }
-            h += minManhattan;
         }
-        return h;
+        return min;
+    }
+
+    /**
+     * Position normalisée du joueur en 'start' (caisses lues dans ctx.boxAt).
+     */
+    private int normalizePlayer(SearchContext ctx, int start) {
+        return markReachable(ctx, start, ctx.mark, ctx.newStamp());
+    }
+
+    /**
+     * Vérifie si la caisse en 'cell' est gelée (elle ne peut plus bouger,
+     * ni horizontalement ni verticalement) alors qu'elle, ou une caisse
+     * qui la bloque, n'est pas sur une cible : l'état est alors sans issue.
+     * Couvre les blocs 2x2 de caisses/murs et les caisses collées le long d'un mur.
+     */
+    private boolean isFreezeDeadlock(SearchContext ctx, int cell) {
+        ctx.frozenOffTarget = false;
+        return isFrozen(ctx, cell, ctx.newStamp()) && ctx.frozenOffTarget;
+    }
+
+    /**
+     * Teste récursivement si une caisse est bloquée sur les deux axes.
+     * Les caisses déjà en cours de vérification (marquées) comptent comme des murs,
+     * ce qui évite les cycles.
+     * Met ctx.frozenOffTarget à 'true' si une caisse gelée rencontrée n'est pas sur une cible.
+     */
+    private boolean isFrozen(SearchContext ctx, int cell, int stamp) {
+        ctx.mark[cell] = stamp;
+        int[] off = level.dirOffsets;
+        boolean frozen = isBlockedOnAxis(ctx, cell, off[3], stamp)  // Gauche / Droite
+                && isBlockedOnAxis(ctx, cell, off[1], stamp);       // Haut / Bas
+        if (frozen && !level.isTarget(cell)) {
+            ctx.frozenOffTarget = true;
+        }
+        return frozen;
+    }
+
+    /**
+     * Une caisse est bloquée sur un axe si :
+     * 1. un mur la touche d'un côté, ou
+     * 2. les deux cases de l'axe sont mortes, ou
+     * 3. une caisse elle-même gelée la touche d'un côté.
+     */
+    private boolean isBlockedOnAxis(SearchContext ctx, int cell, int offset, int stamp) {
+        int before = cell - offset;
+        int after = cell + offset;
+
+        if (level.isWall(before) || level.isWall(after)) {
+            return true;
+        }
+        if (level.isDead(before) && level.isDead(after)) {
+            return true;
+        }
+        return isFrozenBox(ctx, before, stamp) || isFrozenBox(ctx, after, stamp);
+    }
+
+    private boolean isFrozenBox(SearchContext ctx, int cell, int stamp) {
+        if (ctx.boxAt[cell] < 0) {
+            return false;
+        }
+        return ctx.mark[cell] == stamp || isFrozen(ctx, cell, stamp);
     }
 
     /**
      * Génère tous les états successeurs (voisins) valides.
      * C'est le cœur de la logique du jeu.
+     * * La recherche se fait au niveau des POUSSÉES : on calcule la zone accessible
+     * au joueur, puis on crée un successeur par poussée possible depuis cette zone.
+     * Les déplacements simples ne créent pas de nœuds A* (voir SokobanSolver.buildFullPath).
+     * @param ctx Espace de travail de la recherche (tableaux réutilisés, métriques)
      */
-    public List<Etat> generateSuccessors() {
+    public List<Etat> generateSuccessors(SearchContext ctx) {
         List<Etat> successors = new ArrayList<>();
 
-        // Itération sur les 4 directions (Haut, Bas, Gauche, Droite)
-        for (int i = 0; i < 4; i++) {
-            int dr = SokobanSolver.DIRS[i][0];
-            int dc = SokobanSolver.DIRS[i][1];
-            String actionDirection = SokobanSolver.DIR_NAMES[i];
-
-            // Position adjacente (là où le joueur veut aller)
-            int nextPR = playerR + dr;
-            int nextPC = playerC + dc;
+        // Un état sans affectation possible n'a aucun successeur utile
+        if (h_cost >= MinCostMatching.INF) {
+            return successors;
+        }
 
-            // Si c'est un mur, mouvement impossible
-            if (STATIC_BOARD[nextPR][nextPC] == SokobanSolver.WALL) {
-                continue;
+        int[] off = level.dirOffsets;
+        int[] boxAt = ctx.boxAt;
+        ctx.placeBoxes(boxes);
+        int reachStamp = ctx.newReachStamp();
+        markReachable(ctx, player, ctx.reachMark, reachStamp);
+
+        // Temps (h, corrals) relevés sur une expansion sur TIMING_SAMPLE (voir SearchContext)
+        boolean timed = ctx.sampleTiming();
+
+        // Corral PI : seules ses poussées sont utiles, aucune s'il est sans issue
+        boolean[] corral = null;
+        if (ctx.corrals != null) {
+            long corralStart = timed ? System.nanoTime() : 0;
+            int verdict = ctx.corrals.analyze(boxes, boxAt, ctx.reachMark, reachStamp);
+            if (timed) {
+                ctx.metrics.corralNanos += (System.nanoTime() - corralStart) * SearchContext.TIMING_SAMPLE;
             }
+            if (verdict == CorralPruning.DEADLOCK) {
+                ctx.metrics.corralDeadlocks++;
+                ctx.clearBoxes(boxes);
+                return successors;
+            }
+            if (verdict == CorralPruning.RESTRICTED) {
+                corral = ctx.corrals.corralBoxes;
+            }
+        }
+
+        // Affectation optimale du parent (déduite de la précédente quand une
+        // seule caisse a bougé, voir SearchContext.matchBoxes) : chaque
+        // successeur ne déplace qu'une caisse, il hérite du coût d'affectation
+        // du parent et seule la variation due à la ligne de cette caisse est calculée.
+        MinCostMatching matching = ctx.matching;
+        long start = timed ? System.nanoTime() : 0;
+        int parentMatching = ctx.matchBoxes(boxes);
+        ctx.preparePatterns(boxes);
+        long heuristicNanos = timed ? System.nanoTime() - start : 0;
+
+        // Pour chaque caisse...
+        for (int i = 0; i < boxes.length; i++) {
+            int box = boxes[i];
+            // ...et chaque direction (Haut, Bas, Gauche, Droite)
+            for (int d = 0; d < 4; d++) {
+                // Case d'où le joueur pousse (derrière la caisse): doit être accessible
+                if (ctx.reachMark[box - off[d]] != reachStamp) {
+                    continue;
+                }
 
-            char cellAtNextPos = this.board[nextPR][nextPC];
-
-            // --- Cas 1 : Poussée de Caisse (PUSH) ---
-            // Si la case adjacente contient une caisse...
-            if (SokobanSolver.isBoxSymbol(cellAtNextPos)) {
-
-                // Position derrière la caisse (cible de la poussée)
-                int targetR = nextPR + dr;
-                int targetC = nextPC + dc;
-
-                // Vérification de la cible de la poussée:
-                // 1. Est-ce un mur ?
-                // 2. Y a-t-il une AUTRE caisse ?
-                if (STATIC_BOARD[targetR][targetC] != SokobanSolver.WALL &&
-                        !SokobanSolver.isBoxSymbol(this.board[targetR][targetC]))
-                {
-                    // --- Poussée valide ---
-                    Etat newState = new Etat(this); // Crée une copie
-
-                    // ******** CORRECTION COÛT A* ********
-                    // On incrémente g(n) SEULEMENT pour une poussée.
-                    newState.g_cost += 1;
-                    // **********************************
-
-                    // Trouver la caisse qui est poussée
-                    BoxPosition boxToPush = null;
-                    for(BoxPosition b : newState.boxCoords) {
-                        if(b.r == nextPR && b.c == nextPC) {
-                            boxToPush = b;
-                            break;
-                        }
+                // Position derrière la caisse (cible de la poussée): ni mur, ni AUTRE caisse
+                int target = box + off[d];
+                if (!isFree(ctx, target)) {
+                    continue;
+                }
+
+                // Caisse hors du corral PI retenu
+                if (corral != null && !corral[i]) {
+                    ctx.metrics.corralPruned++;
+                    continue;
+                }
+
+                // Élagage statique : la caisse arriverait sur une case morte
+                if (level.isDead(target)) {
+                    ctx.prunedPushes++;
+                    continue;
+                }
+
+                // Macro-poussée : dans un tunnel, la caisse est poussée jusqu'à
+                // la sortie (ou jusqu'à un obstacle) en un seul successeur
+                int steps = 1;
+                if (level.tunnelMacros) {
+                    while (level.isTunnel(target, d) && isFree(ctx, target + off[d])
+                            && !level.isDead(target + off[d])) {
+                        target += off[d];
+                        steps++;
                     }
+                }
+                int pusher = target - off[d]; // Case du joueur après la (dernière) poussée
+
+                // Appliquer la poussée dans 'boxAt' le temps des vérifications
+                boxAt[box] = -1;
+                boxAt[target] = i;
+
+                // Élagage dynamique : la caisse poussée est gelée hors cible
+                if (isFreezeDeadlock(ctx, target)) {
+                    ctx.prunedPushes++;
+                    boxAt[target] = -1;
+                    boxAt[box] = i;
+                    continue;
+                }
 
-                    newState.action = "PUSH '" + boxToPush.name + "' " + actionDirection;
+                // h(n) : affectation du parent + variation pour la caisse poussée,
+                // puis la base de motifs s'il y en a une
+                short[] newBoxes = boxes.clone();
+                newBoxes[i] = (short) target;
+                if (timed) {
+                    start = System.nanoTime();
+                }
+                int h = ctx.withPatterns(parentMatching + matching.deltaWithRow(i, ctx.fillCostRow(target)), boxes, i, target);
+                if (timed) {
+                    heuristicNanos += System.nanoTime() - start;
+                }
+                if (h >= MinCostMatching.INF) {
+                    ctx.prunedPushes++; // Aucune affectation possible : impasse
+                    boxAt[target] = -1;
+                    boxAt[box] = i;
+                    continue;
+                }
 
-                    // 1. Mettre à jour l'ensemble des caisses
-                    newState.boxCoords.remove(boxToPush);
-                    newState.boxCoords.add(new BoxPosition(targetR, targetC, boxToPush.name));
+                // --- Poussée valide ---
+                // Le joueur se retrouve juste derrière la caisse
+                Etat newState = new Etat(this, newBoxes, pusher, keepSorted(newBoxes, i), d);
+                newState.normalizedPlayer = normalizePlayer(ctx, pusher);
+                newState.zobrist = childHash(i, box, target, newState.normalizedPlayer);
+                newState.g_cost = g_cost + steps;
+                newState.pushSteps = steps;
+                newState.move = PathTable.moveCode(i, d);
+                newState.h_cost = h;
+                newState.f_cost = newState.g_cost + newState.h_cost;
+                successors.add(newState);
 
-                    // 2. Mettre à jour la position du joueur
-                    newState.playerR = nextPR;
-                    newState.playerC = nextPC;
+                boxAt[target] = -1;
+                boxAt[box] = i;
+            }
+        }
+        ctx.clearBoxes(boxes);
+        ctx.metrics.generated += successors.size();
+        ctx.metrics.heuristicNanos += heuristicNanos * SearchContext.TIMING_SAMPLE;
+        return successors;
+    }
 
-                    // 3. Mettre à jour la GRILLE VISUELLE (board)
-                    // A. Ancienne position du Joueur
-                    newState.board[playerR][playerC] = STATIC_BOARD[playerR][playerC]; // (devient T ou □)
+    /**
+     * Rejoue une poussée enregistrée dans une PathTable : le successeur de
+     * code 'move' (macro-poussée comprise), avec cet état pour parent.
+     * @throws IllegalStateException Si cette poussée n'est pas possible ici
+     */
+    Etat replayMove(SearchContext ctx, short move) {
+        for (Etat next : generateSuccessors(ctx)) {
+            if (next.move == move) {
+                return next;
+            }
+        }
+        throw new IllegalStateException("Poussée " + move + " impossible depuis cet état");
+    }
 
-                    // B. Ancienne position de la Caisse (devient le Joueur)
-                    newState.board[nextPR][nextPC] = (STATIC_BOARD[nextPR][nextPC] == SokobanSolver.TARGET) ? SokobanSolver.PLAYER_ON_TARGET : SokobanSolver.PLAYER;
+    /**
+     * Génère les prédécesseurs d'un état : contrepartie "arrière" de
+     * generateSuccessors, utilisée par la recherche bidirectionnelle.
+     * * Un prédécesseur est obtenu en TIRANT une caisse : le joueur, collé
+     * à la caisse, recule d'une case et la caisse le suit. Pousser ensuite
+     * cette caisse dans l'autre sens ramène à l'état courant.
+     * * pushDir est ici la direction du tirage ; h est calculé avec les
+     * distances du contexte (depuis les cases de départ des caisses).
+     * Pas d'élagage par gel : une caisse gelée peut toujours être tirée.
+     * @param ctx Espace de travail de la recherche arrière
+     */
+    public List<Etat> generatePullSuccessors(SearchContext ctx) {
+        List<Etat> predecessors = new ArrayList<>();
+        if (h_cost >= MinCostMatching.INF) {
+            return predecessors;
+        }
 
-                    // C. Nouvelle position de la Caisse
-                    newState.board[targetR][targetC] = (STATIC_BOARD[targetR][targetC] == SokobanSolver.TARGET)
-                            ? SokobanSolver.BOX_TO_TARGET_MAP.get(boxToPush.name) // (devient 'A', 'B'...)
-                            : boxToPush.name; // (devient 'a', 'b'...)
+        int[] off = level.dirOffsets;
+        int[] boxAt = ctx.boxAt;
+        ctx.placeBoxes(boxes);
+        int reachStamp = ctx.newReachStamp();
+        markReachable(ctx, player, ctx.reachMark, reachStamp);
+
+        MinCostMatching matching = ctx.matching;
+        // Temps de h relevé sur une expansion sur TIMING_SAMPLE (voir SearchContext)
+        boolean timed = ctx.sampleTiming();
+        long start = timed ? System.nanoTime() : 0;
+        int parentMatching = ctx.matchBoxes(boxes);
+        ctx.preparePatterns(boxes);
+        long heuristicNanos = timed ? System.nanoTime() - start : 0;
+
+        for (int i = 0; i < boxes.length; i++) {
+            int box = boxes[i];
+            for (int d = 0; d < 4; d++) {
+                // Case où se tient le joueur (à côté de la caisse) : doit être accessible
+                int stand = box + off[d];
+                if (ctx.reachMark[stand] != reachStamp) {
+                    continue;
+                }
+                // Case où recule le joueur : ni mur, ni caisse
+                int back = stand + off[d];
+                if (!isFree(ctx, back)) {
+                    continue;
+                }
 
-                    // 4. Recalculer les coûts h(n) et f(n)
-                    newState.h_cost = newState.calculateHeuristic();
-                    newState.f_cost = newState.g_cost + newState.h_cost;
+                // La caisse prend la place du joueur
+                boxAt[box] = -1;
+                boxAt[stand] = i;
 
-                    successors.add(newState);
+                short[] newBoxes = boxes.clone();
+                newBoxes[i] = (short) stand;
+                if (timed) {
+                    start = System.nanoTime();
                 }
-            }
-            // --- Cas 2 : Mouvement Simple du Joueur (MOVE) ---
-            else {
-                Etat newState = new Etat(this); // Crée une copie
-                newState.action = "MOVE " + actionDirection; // Action (pas de coût)
-
-                // ******** CORRECTION COÛT A* ********
-                // g_cost n'est PAS incrémenté. Le mouvement est "gratuit".
-                // h_cost ne change pas, car les caisses n'ont pas bougé.
-                // **********************************
-
-                // Mettre à jour la position du joueur
-                newState.playerR = nextPR;
-                newState.playerC = nextPC;
-
-                // Mettre à jour la GRILLE VISUELLE (board)
-                // A. Ancienne position du Joueur
-                newState.board[playerR][playerC] = STATIC_BOARD[playerR][playerC]; // (devient T ou □)
-                // B. Nouvelle position du Joueur
-                newState.board[nextPR][nextPC] = (STATIC_BOARD[nextPR][nextPC] == SokobanSolver.TARGET) ? SokobanSolver.PLAYER_ON_TARGET : SokobanSolver.PLAYER;
-
-                // 4. Recalculer les coûts h(n) et f(n)
-                newState.h_cost = newState.calculateHeuristic(); // (h ne change pas, mais on le garde)
+                int h = ctx.withPatterns(parentMatching + matching.deltaWithRow(i, ctx.fillCostRow(stand)), boxes, i, stand);
+                if (timed) {
+                    heuristicNanos += System.nanoTime() - start;
+                }
+                if (h >= MinCostMatching.INF) {
+                    ctx.prunedPushes++; // La caisse ne peut venir d'aucune case de départ
+                    boxAt[stand] = -1;
+                    boxAt[box] = i;
+                    continue;
+                }
+
+                Etat newState = new Etat(this, newBoxes, back, keepSorted(newBoxes, i), d);
+                newState.normalizedPlayer = normalizePlayer(ctx, back);
+                newState.zobrist = childHash(i, box, stand, newState.normalizedPlayer);
+                newState.h_cost = h;
                 newState.f_cost = newState.g_cost + newState.h_cost;
+                predecessors.add(newState);
 
-                successors.add(newState);
+                boxAt[stand] = -1;
+                boxAt[box] = i;
             }
         }
-        return successors;
+        ctx.clearBoxes(boxes);
+        ctx.metrics.generated += predecessors.size();
+        ctx.metrics.heuristicNanos += heuristicNanos * SearchContext.TIMING_SAMPLE;
+        return predecessors;
+    }
+
+    /**
+     * Crée l'état obtenu en poussant la caisse 'box' dans la direction 'dir',
+     * sans vérification, heuristique (h = 0), position normalisée ni
+     * hachage : sert à rejouer des poussées déjà connues comme valides
+     * (ex: la moitié arrière d'une solution bidirectionnelle).
+     */
+    Etat applyPush(int box, int dir) {
+        short[] newBoxes = boxes.clone();
+        newBoxes[box] = (short) (boxes[box] + level.dirOffsets[dir]);
+        Etat next = new Etat(this, newBoxes, boxes[box], keepSorted(newBoxes, box), dir);
+        next.f_cost = next.g_cost;
+        return next;
+    }
+
+    /**
+     * Caisses interchangeables : remet à son rang la caisse 'i' qui vient de
+     * bouger, pour que 'cells' reste trié (forme canonique de l'état).
+     * @return Le nouvel indice de la caisse
+     */
+    private int keepSorted(short[] cells, int i) {
+        if (level.labeled) {
+            return i;
+        }
+        short moved = cells[i];
+        while (i > 0 && cells[i - 1] > moved) {
+            cells[i] = cells[i - 1];
+            i--;
+        }
+        while (i < cells.length - 1 && cells[i + 1] < moved) {
+            cells[i] = cells[i + 1];
+            i++;
+        }
+        cells[i] = moved;
+        return i;
+    }
+
+    /**
+     * Indice de la caisse sur la case 'cell', ou -1.
+     */
+    int boxIndexAt(int cell) {
+        for (int i = 0; i < boxes.length; i++) {
+            if (boxes[i] == cell) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Calcule le plus court chemin du joueur (sans pousser de caisse)
+     * de sa position actuelle jusqu'à la case 'goal'.
+     * @return La liste des actions "MOVE <DIR>", ou 'null' si la case est inaccessible.
+     */
+    public List<String> walkTo(int goal) {
+        int[] dirs = walkDirections(goal);
+        if (dirs == null) {
+            return null;
+        }
+        List<String> path = new ArrayList<>(dirs.length);
+        for (int d : dirs) {
+            path.add("MOVE " + SokobanSolver.DIR_NAMES[d]);
+        }
+        return path;
+    }
+
+    /**
+     * Comme walkTo, sous forme de directions (indices dans DIRS).
+     * @return Les directions successives, ou 'null' si la case est inaccessible.
+     */
+    int[] walkDirections(int goal) {
+        boolean[] blocked = new boolean[level.cells];
+        for (short box : boxes) {
+            blocked[box] = true;
+        }
+        int[] cameFrom = new int[level.cells]; // Direction (+1) par laquelle on est arrivé
+        int[] queue = new int[level.cells];
+        int head = 0, tail = 0;
+
+        cameFrom[player] = -1;
+        queue[tail++] = player;
+
+        while (head < tail && cameFrom[goal] == 0) {
+            int cell = queue[head++];
+            for (int d = 0; d < 4; d++) {
+                int next = cell + level.dirOffsets[d];
+                if (cameFrom[next] == 0 && !level.isWall(next) && !blocked[next]) {
+                    cameFrom[next] = d + 1;
+                    queue[tail++] = next;
+                }
+            }
+        }
+        if (cameFrom[goal] == 0) {
+            return null;
+        }
+
+        // Remonter le chemin depuis l'arrivée
+        int length = 0;
+        for (int cell = goal; cell != player; cell -= level.dirOffsets[cameFrom[cell] - 1]) {
+            length++;
+        }
+        int[] path = new int[length];
+        for (int cell = goal; cell != player; ) {
+            int d = cameFrom[cell] - 1;
+            path[--length] = d;
+            cell -= level.dirOffsets[d];
+        }
+        return path;
     }
 
     /**
@@ -307,4 +676,4 @@ class Etat implements Comparable<Etat> {
     public int compareTo(Etat other) {
         return Integer.compare(this.f_cost, other.f_cost);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,362 @@
+package com.fstt.devoir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * Moteur A* en mémoire externe : la frontière et les états déjà développés
+ * sont sur disque, dans un dossier de travail (SolverOptions.scratchDir).
+ * * Les états sont rangés dans des seaux (g, h), un fichier par seau
+ * (StateFile : clés compactes, sans parent). Les seaux sont développés par
+ * f = g + h croissant, puis par g croissant : c'est l'ordre de A*, couche de f
+ * par couche de f.
+ * * Détection RETARDÉE des doublons : un successeur est simplement ajouté au
+ * fichier de son seau. Au moment de développer un seau, son fichier est trié
+ * par séries tenant en mémoire (SolverOptions.memoryBudgetBytes), les séries
+ * sont fusionnées et chaque clé est comparée, toujours par fusion, aux seaux
+ * déjà développés de même h (une clé a toujours le même h : un état déjà
+ * développé ne peut se trouver que dans un seau (g', h) antérieur).
+ * * Le chemin n'est pas gardé : la solution est retrouvée à rebours, en
+ * tirant les caisses depuis l'état final (Etat.generatePullSuccessors) et en
+ * cherchant chaque prédécesseur par dichotomie dans le seau (g - 1, h) trié
+ * (g - k après une macro-poussée de k cases dans un tunnel).
+ * * Avec une heuristique cohérente (un seul déplacement de caisse change h
+ * d'au plus 1), la solution a le même nombre de poussées qu'avec A*.
+ */
+class ExternalSearch {
+
+    private final Level level;
+    private final SearchContext ctx;
+    private final SearchBudget budget;
+    private final Path scratchDir;
+    private final int runRecords; // Enregistrements par série triée en mémoire
+    private Path dir;             // Dossier propre à cette recherche
+
+    // Seaux à développer (fichiers non triés), par (f, g) croissant
+    private final TreeMap<Long, StateFile> pending = new TreeMap<>();
+    // Seaux déjà développés (fichiers triés, sans doublon), par valeur de h
+    private final Map<Integer, List<Layer>> expandedLayers = new HashMap<>();
+    private long pendingRecords = 0;
+    private long expandedRecords = 0;
+    private int fileCount = 0;
+
+    public long exploredNodes = 0; // Métrique: Nombre de nœuds explorés
+
+    /**
+     * Un seau déjà développé : ses états, triés et distincts.
+     */
+    private static final class Layer {
+        final int g;
+        final StateFile file;
+
+        Layer(int g, StateFile file) {
+            this.g = g;
+            this.file = file;
+        }
+    }
+
+    public ExternalSearch(Level level, SolverOptions options) {
+        this.level = level;
+        this.ctx = new SearchContext(level);
+        this.budget = new SearchBudget(options);
+        this.scratchDir = Path.of(options.scratchDir);
+        long records = options.memoryBudgetBytes / (level.keyWords * 8L);
+        this.runRecords = (int) Math.max(1024, Math.min(records, Integer.MAX_VALUE / level.keyWords));
+    }
+
+    public SearchContext context() {
+        return ctx;
+    }
+
+    public long[] progress() {
+        return budget.progress();
+    }
+
+    public boolean wasAborted() {
+        return budget.wasExceeded();
+    }
+
+    /**
+     * Lance la recherche ; tous les fichiers sont supprimés à la fin.
+     * @return L'état final (gagnant), avec sa chaîne de 'parent', ou 'null' si
+     *         aucune solution (ou si la recherche a été interrompue, voir wasAborted).
+     * @throws UncheckedIOException Si le dossier de travail est inutilisable (ou plein)
+     */
+    public Etat search(Etat etatInitial) {
+        try {
+            Files.createDirectories(scratchDir);
+            dir = Files.createTempDirectory(scratchDir, "sokoban-");
+            try {
+                return run(etatInitial);
+            } finally {
+                deleteAll();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Recherche externe : erreur sur " + scratchDir, e);
+        }
+    }
+
+    private Etat run(Etat etatInitial) throws IOException {
+        bucket(etatInitial.f_cost, etatInitial.g_cost).append(etatInitial.getUniqueKey());
+        pendingRecords++;
+
+        while (!pending.isEmpty()) {
+            Map.Entry<Long, StateFile> next = pending.pollFirstEntry();
+            int f = (int) (next.getKey() >>> 32);
+            int g = (int) (long) next.getKey();
+            StateFile input = next.getValue();
+            pendingRecords -= input.size();
+
+            Etat goal = expandBucket(input, g, f - g);
+            if (goal != null) {
+                return reconstruct(etatInitial, goal);
+            }
+            if (budget.wasExceeded()) {
+                return null;
+            }
+            ctx.metrics.updatePeaks(pendingRecords, expandedRecords);
+        }
+        return null;
+    }
+
+    /**
+     * Fichier du seau (g, h) à développer, créé à la demande.
+     */
+    private StateFile bucket(int f, int g) {
+        return pending.computeIfAbsent(((long) f << 32) | g,
+                k -> new StateFile(newPath("g" + g + "-h" + (f - g)), level.keyWords, ctx.metrics));
+    }
+
+    private Path newPath(String name) {
+        return dir.resolve(name + "-" + (fileCount++) + ".bin");
+    }
+
+    /**
+     * Trie et dédoublonne le seau (g, h), puis développe chacun de ses
+     * états nouveaux : leurs successeurs sont ajoutés aux seaux suivants.
+     * @return L'état final s'il est dans ce seau, sinon 'null'
+     */
+    private Etat expandBucket(StateFile input, int g, int h) throws IOException {
+        int words = level.keyWords;
+        List<StateFile> runs = sortRuns(input);
+        List<Layer> previous = expandedLayers.computeIfAbsent(h, k -> new ArrayList<>());
+        StateFile output = new StateFile(newPath("g" + g + "-h" + h + "-sorted"), words, ctx.metrics);
+
+        // Fusion des séries : une tête (plus petite clé non lue) par série
+        long[][] heads = new long[runs.size()][words];
+        long[] positions = new long[runs.size()];
+        for (int r = 0; r < runs.size(); r++) {
+            runs.get(r).read(0, heads[r], 0);
+        }
+        // Curseurs sur les seaux déjà développés de même h
+        long[][] seen = new long[previous.size()][words];
+        long[] seenPositions = new long[previous.size()];
+        for (int p = 0; p < previous.size(); p++) {
+            seenPositions[p] = -1;
+        }
+
+        long[] key = new long[words];
+        boolean first = true;
+        Etat goal = null;
+        while (goal == null) {
+            int min = -1;
+            for (int r = 0; r < runs.size(); r++) {
+                if (positions[r] < runs.get(r).size()
+                        && (min < 0 || StateFile.compare(heads[r], 0, heads[min], 0, words) < 0)) {
+                    min = r;
+                }
+            }
+            if (min < 0) {
+                break; // Toutes les séries sont lues
+            }
+            boolean repeated = !first && Arrays.equals(key, heads[min]);
+            System.arraycopy(heads[min], 0, key, 0, words);
+            first = false;
+            if (++positions[min] < runs.get(min).size()) {
+                runs.get(min).read(positions[min], heads[min], 0);
+            }
+            if (repeated || alreadyExpanded(key, previous, seen, seenPositions)) {
+                ctx.metrics.duplicates++;
+                continue;
+            }
+
+            output.append(key);
+            expandedRecords++;
+            Etat current = Etat.fromKey(level, key, g, ctx);
+            if (budget.isExceeded(++exploredNodes)) {
+                break; // Interrompue : rien n'est prouvé
+            }
+            if (current.isGoal()) {
+                goal = current;
+                break;
+            }
+            for (Etat successor : current.generateSuccessors(ctx)) {
+                bucket(successor.f_cost, successor.g_cost).append(successor.getUniqueKey());
+                pendingRecords++;
+            }
+        }
+
+        output.map();
+        previous.add(new Layer(g, output));
+        for (StateFile run : runs) {
+            run.delete();
+        }
+        return goal;
+    }
+
+    /**
+     * Découpe le fichier d'un seau en séries triées et sans doublon, chacune
+     * tenant en mémoire ('runRecords' enregistrements). Le fichier d'origine
+     * est supprimé.
+     */
+    private List<StateFile> sortRuns(StateFile input) throws IOException {
+        int words = level.keyWords;
+        input.map();
+        long total = input.size();
+        long[] records = new long[(int) Math.min(total, runRecords) * words];
+        List<StateFile> runs = new ArrayList<>();
+        for (long start = 0; start < total; start += runRecords) {
+            int count = (int) Math.min(runRecords, total - start);
+            for (int i = 0; i < count; i++) {
+                input.read(start + i, records, i * words);
+            }
+            int unique = StateFile.sortUnique(records, count, words);
+            ctx.metrics.duplicates += count - unique;
+            StateFile run = new StateFile(newPath("run"), words, ctx.metrics);
+            for (int i = 0; i < unique; i++) {
+                run.append(records, i * words);
+            }
+            run.map();
+            runs.add(run);
+        }
+        input.delete();
+        return runs;
+    }
+
+    /**
+     * Vérifie si 'key' est dans un seau déjà développé. Les clés étant lues
+     * dans l'ordre croissant, chaque curseur ne fait qu'avancer.
+     */
+    private boolean alreadyExpanded(long[] key, List<Layer> previous, long[][] seen, long[] positions) {
+        int words = level.keyWords;
+        boolean found = false;
+        for (int p = 0; p < previous.size(); p++) {
+            StateFile file = previous.get(p).file;
+            while (positions[p] < file.size()
+                    && (positions[p] < 0 || StateFile.compare(seen[p], 0, key, 0, words) < 0)) {
+                if (++positions[p] < file.size()) {
+                    file.read(positions[p], seen[p], 0);
+                }
+            }
+            if (positions[p] < file.size() && StateFile.compare(seen[p], 0, key, 0, words) == 0) {
+                found = true;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Retrouve le chemin de la solution. À rebours : parmi les prédécesseurs
+     * de l'état (caisses tirées), celui qui est dans un seau développé. Puis
+     * en avant, depuis l'état initial, pour reconstruire la chaîne de
+     * 'parent' (caisse et direction de chaque poussée).
+     */
+    private Etat reconstruct(Etat etatInitial, Etat goal) {
+        LinkedList<long[]> keys = new LinkedList<>();
+        long[] scratch = new long[level.keyWords];
+        for (Etat current = goal; current.g_cost > 0; ) {
+            keys.addFirst(current.getUniqueKey());
+            current = expandedPredecessor(current, scratch);
+        }
+
+        Etat etat = etatInitial;
+        for (long[] key : keys) {
+            etat = successorWithKey(etat, key);
+        }
+        return etat;
+    }
+
+    /**
+     * Un prédécesseur de 'current' dans un seau développé (g - k, h) : une
+     * caisse est tirée d'une case, puis, avec les macro-poussées, encore de
+     * k - 1 cases dans la même direction (tunnel). Le candidat doit bien
+     * avoir 'current' pour successeur.
+     */
+    private Etat expandedPredecessor(Etat current, long[] scratch) {
+        long[] key = current.getUniqueKey();
+        for (Etat pulled : current.generatePullSuccessors(ctx)) {
+            for (int steps = 1; pulled != null && steps <= current.g_cost; steps++) {
+                int g = current.g_cost - steps;
+                long[] candidate = pulled.getUniqueKey();
+                if (isExpanded(candidate, g, pulled.h_cost, scratch)) {
+                    Etat predecessor = Etat.fromKey(level, candidate, g, ctx);
+                    Etat successor = successorWithKey(predecessor, key);
+                    if (successor != null && successor.g_cost == current.g_cost) {
+                        return predecessor;
+                    }
+                }
+                pulled = level.tunnelMacros ? pullAgain(pulled) : null;
+            }
+        }
+        throw new IllegalStateException("Recherche externe : prédécesseur introuvable à g = " + current.g_cost);
+    }
+
+    /**
+     * Tire encore d'une case, dans la même direction, la caisse qui vient d'être tirée.
+     */
+    private Etat pullAgain(Etat pulled) {
+        int cell = pulled.boxes[pulled.pushBox] + level.dirOffsets[pulled.pushDir];
+        for (Etat next : pulled.generatePullSuccessors(ctx)) {
+            if (next.pushDir == pulled.pushDir && next.boxes[next.pushBox] == cell) {
+                return next;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Le successeur de 'etat' de clé 'key', ou 'null'.
+     */
+    private Etat successorWithKey(Etat etat, long[] key) {
+        for (Etat successor : etat.generateSuccessors(ctx)) {
+            if (Arrays.equals(successor.getUniqueKey(), key)) {
+                return successor;
+            }
+        }
+        return null;
+    }
+
+    private boolean isExpanded(long[] key, int g, int h, long[] scratch) {
+        for (Layer layer : expandedLayers.getOrDefault(h, List.of())) {
+            if (layer.g == g && layer.file.contains(key, scratch)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Supprime tous les fichiers de la recherche (seaux, séries en cours),
+     * puis son dossier.
+     */
+    private void deleteAll() throws IOException {
+        pending.clear();
+        expandedLayers.clear();
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.deleteIfExists(file);
+            }
+        }
+        Files.deleteIfExists(dir);
+    }
+}
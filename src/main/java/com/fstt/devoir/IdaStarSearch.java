@@ -0,0 +1,108 @@
+package com.fstt.devoir;
+
+import java.util.List;
+
+/**
+ * Moteur IDA* (A* à approfondissement itératif) à mémoire bornée.
+ * * Au lieu de garder tous les états dans une openList, on fait une suite de
+ * parcours en profondeur limités par un seuil sur f = g + h. Chaque itération
+ * relève le seuil au plus petit f qui l'a dépassé. La mémoire utilisée est :
+ * - le chemin courant (profondeur = nombre de poussées),
+ * - une TranspositionTable de taille fixe (budget SolverOptions.memoryBudgetBytes).
+ * * Avec une heuristique admissible, la première solution trouvée est optimale
+ * (même nombre de poussées que A*).
+ */
+class IdaStarSearch {
+
+    // Résultat d'un parcours : seuil suivant quand aucune solution n'est trouvée
+    private static final int FOUND = -1;
+    // Recherche interrompue (limite de temps ou de nœuds)
+    private static final int ABORTED = -2;
+
+    private final SearchContext ctx;
+    private final TranspositionTable table;
+    private final SearchBudget budget;
+    private int iteration;
+    private Etat solution;
+
+    public long exploredNodes = 0; // Métrique: Nombre de nœuds explorés
+
+    public IdaStarSearch(Level level, SolverOptions options) {
+        this.ctx = new SearchContext(level);
+        this.table = new TranspositionTable(level.keyWords, options.memoryBudgetBytes);
+        this.budget = new SearchBudget(options);
+    }
+
+    public long[] progress() {
+        return budget.progress();
+    }
+
+    public boolean wasAborted() {
+        return budget.wasExceeded();
+    }
+
+    public SearchContext context() {
+        return ctx;
+    }
+
+    /**
+     * Lance IDA* depuis l'état initial.
+     * @return L'état final (gagnant), ou 'null' si aucune solution n'existe
+     *         (ou si la recherche a été interrompue, voir wasAborted).
+     */
+    public Etat search(Etat etatInitial) {
+        int threshold = etatInitial.f_cost;
+        while (threshold < MinCostMatching.INF) {
+            iteration++;
+            int next = depthFirst(etatInitial, threshold, 0);
+            if (next == FOUND) {
+                return solution;
+            }
+            if (next == ABORTED) {
+                return null;
+            }
+            threshold = next; // Plus petit f ayant dépassé le seuil
+        }
+        return null;
+    }
+
+    /**
+     * Parcours en profondeur limité par 'threshold'.
+     * @return FOUND si une solution est trouvée (dans 'solution'), ABORTED si
+     *         le budget est épuisé, sinon le plus petit f rencontré au-delà
+     *         du seuil (INF si aucun).
+     */
+    private int depthFirst(Etat current, int threshold, int depth) {
+        if (current.f_cost > threshold) {
+            return current.f_cost;
+        }
+        if (budget.isExceeded(++exploredNodes)) {
+            return ABORTED;
+        }
+        if (current.isGoal()) {
+            solution = current;
+            return FOUND;
+        }
+        // Déjà atteint dans cette itération avec un coût au moins aussi bon
+        if (table.checkAndStore(current.getUniqueKey(), current.getZobristHash(), current.g_cost, iteration)) {
+            ctx.metrics.duplicates++;
+            return MinCostMatching.INF;
+        }
+        ctx.metrics.updatePeaks(depth + 1, 0); // "openList" d'IDA* : le chemin courant
+
+        List<Etat> successors = current.generateSuccessors(ctx);
+        // Les successeurs les plus prometteurs d'abord : la dernière itération
+        // atteint plus vite la solution.
+        successors.sort(null);
+
+        int min = MinCostMatching.INF;
+        for (Etat next : successors) {
+            int result = depthFirst(next, threshold, depth + 1);
+            if (result == FOUND || result == ABORTED) {
+                return result;
+            }
+            min = Math.min(min, result);
+        }
+        return min;
+    }
+}
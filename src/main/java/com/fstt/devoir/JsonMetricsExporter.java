@@ -0,0 +1,85 @@
+package com.fstt.devoir;
+
+/**
+ * Export des métriques d'une résolution en JSON : un objet par niveau, sur
+ * une seule ligne (format "JSON Lines"), pour tracer le comportement de la
+ * recherche sur toute une collection.
+ * * Exemple :
+ * {"level":1,"name":"1","status":"solved","engine":"A*","pushes":8,"moves":33,
+ *  "expanded":14,"generated":40,...,"progress":[[100,5231],[200,10877]]}
+ */
+final class JsonMetricsExporter {
+
+    private JsonMetricsExporter() {
+    }
+
+    /**
+     * @param moves Nombre total de mouvements de la solution, ignoré si le niveau n'est pas résolu
+     */
+    static String toJson(int number, String name, SolverResult result, int moves) {
+        SearchMetrics m = result.metrics;
+        StringBuilder json = new StringBuilder(256);
+        json.append("{\"level\":").append(number);
+        json.append(",\"name\":").append(quote(name));
+        json.append(",\"status\":").append(quote(result.status()));
+        json.append(",\"engine\":").append(result.engine == null ? "null" : quote(result.engine));
+        if (result.isSolved()) {
+            json.append(",\"pushes\":").append(result.goal.g_cost);
+            json.append(",\"moves\":").append(moves);
+        } else {
+            json.append(",\"pushes\":null,\"moves\":null");
+        }
+        json.append(",\"expanded\":").append(result.exploredNodes);
+        json.append(",\"generated\":").append(m.generated);
+        json.append(",\"duplicates\":").append(m.duplicates);
+        json.append(",\"staleSkipped\":").append(m.staleSkipped);
+        json.append(",\"prunedPushes\":").append(result.prunedPushes);
+        json.append(",\"peakOpen\":").append(m.peakOpen);
+        json.append(",\"peakClosed\":").append(m.peakClosed);
+        json.append(",\"heuristicMs\":").append(m.heuristicNanos / 1_000_000);
+        json.append(",\"bytesWritten\":").append(m.bytesWritten);
+        json.append(",\"bytesRead\":").append(m.bytesRead);
+        json.append(",\"corralPruned\":").append(m.corralPruned);
+        json.append(",\"corralDeadlocks\":").append(m.corralDeadlocks);
+        json.append(",\"corralMs\":").append(m.corralNanos / 1_000_000);
+        json.append(",\"ms\":").append(result.millis);
+        json.append(",\"nodesPerSecond\":").append(result.nodesPerSecond());
+        json.append(",\"firstSolutionMs\":").append(result.firstSolutionMillis());
+        json.append(",\"solutions\":[");
+        for (int i = 0; i < result.solutions.length; i += 3) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append('[').append(result.solutions[i]).append(',').append(result.solutions[i + 1])
+                    .append(',').append(result.solutions[i + 2]).append(']');
+        }
+        json.append(']');
+        json.append(",\"progress\":[");
+        for (int i = 0; i < result.progress.length; i += 2) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append('[').append(result.progress[i]).append(',').append(result.progress[i + 1]).append(']');
+        }
+        json.append("]}");
+        return json.toString();
+    }
+
+    /**
+     * Chaîne JSON (guillemets et caractères de contrôle échappés).
+     */
+    private static String quote(String text) {
+        StringBuilder quoted = new StringBuilder(text.length() + 2).append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"' || c == '\\') {
+                quoted.append('\\').append(c);
+            } else if (c < 0x20) {
+                quoted.append(String.format("\\u%04x", (int) c));
+            } else {
+                quoted.append(c);
+            }
+        }
+        return quoted.append('"').toString();
+    }
+}
@@ -0,0 +1,585 @@
+package com.fstt.devoir;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.SplittableRandom;
+
+/**
+ * Représente un niveau analysé (partie STATIQUE du jeu), partagé par tous
+ * les états d'une même résolution. Immuable une fois construit.
+ * * Les cases sont repérées par un indice unique : cell = r * cols + c.
+ * * Contient :
+ * 1. Les murs et les cibles (BitSet).
+ * 2. La position initiale du joueur et des caisses (avec leurs noms).
+ * 3. Les analyses précalculées : cases mortes, distances de poussée
+ *    (et, sur demande, la base de motifs des paires de caisses), tunnels.
+ * 4. La disposition des clés compactes d'état (voir Etat.getUniqueKey).
+ */
+class Level {
+
+    public final int rows;
+    public final int cols;
+    public final int cells; // rows * cols
+
+    // --- Grille statique ---
+    public final BitSet walls;
+    public final BitSet targets;
+    public final int[] targetCells; // Cibles numérotées (ordre de lecture)
+
+    // --- Éléments mobiles au départ ---
+    public final int initialPlayer;
+    public final char[] boxNames;     // Nom de la caisse i ('a', 'b'...), trié
+    public final short[] initialBoxes; // Case de départ de la caisse i
+    // 'false' : caisses interchangeables (toutes nommées '$'). Les cases des
+    // caisses d'un état sont alors toujours triées : une seule clé par
+    // ensemble de cases, quelle que soit la caisse qui occupe chacune.
+    public final boolean labeled;
+
+    // Déplacement (en indice de case) pour chaque direction de SokobanSolver.DIRS
+    public final int[] dirOffsets;
+
+    // --- Analyses statiques ---
+    // Cases "mortes" : une caisse qui s'y trouve ne pourra plus jamais atteindre une cible.
+    public final BitSet deadSquares;
+    // pushDistances[t][cell] = nombre minimal de poussées pour amener une caisse
+    // de 'cell' à la cible t, en respectant les murs et le côté d'où le joueur
+    // doit pousser (les autres caisses sont ignorées). INF si impossible.
+    public final int[][] pushDistances;
+    // Zones du joueur autour d'une caisse (voir computeSideComponents), gardées
+    // pour les tables calculées à la demande
+    private final int[] sideComponent;
+    // Base de motifs des paires de caisses (voir withPatterns), ou null
+    public final PatternDatabase patterns;
+    // Tunnels : bit (cell * 4 + d) si une caisse poussée vers 'd' jusqu'en 'cell'
+    // est dans un couloir d'une case de large (voir isTunnel)
+    private final BitSet tunnels;
+    // Poussées en tunnel regroupées en une seule "macro-poussée" (voir withTunnelMacros)
+    public final boolean tunnelMacros;
+    // Poussées restreintes aux corrals PI, corrals sans issue élagués (voir CorralPruning)
+    public final boolean corralPruning;
+
+    // --- Encodage compact de la clé d'état ---
+    // Chaque case est codée par son indice + 1, sur bitsPerCell bits.
+    public final int bitsPerCell;
+    public final int cellsPerWord; // Nombre de cases codées dans un 'long'
+    public final int keyWords;     // Nombre de 'long' par clé
+
+    // --- Hachage de Zobrist (voir Etat.getZobristHash) ---
+    // Une valeur aléatoire par (caisse, case) et par position normalisée du joueur.
+    // Caisses interchangeables : une seule table pour toutes les caisses.
+    private final long[] zobristBoxes;
+    private final long[] zobristPlayer;
+
+    private Level(int rows, int cols, BitSet walls, BitSet targets, int initialPlayer,
+                  char[] boxNames, short[] initialBoxes, boolean labeled) {
+        this.rows = rows;
+        this.cols = cols;
+        this.cells = rows * cols;
+        this.walls = walls;
+        this.targets = targets;
+        this.targetCells = targets.stream().toArray();
+        this.initialPlayer = initialPlayer;
+        this.boxNames = boxNames;
+        this.initialBoxes = initialBoxes;
+        this.labeled = labeled;
+
+        this.dirOffsets = new int[4];
+        for (int d = 0; d < 4; d++) {
+            dirOffsets[d] = SokobanSolver.DIRS[d][0] * cols + SokobanSolver.DIRS[d][1];
+        }
+
+        // Clé : 1 case pour le joueur + 1 case par caisse. La valeur 0 n'est jamais utilisée.
+        this.bitsPerCell = 32 - Integer.numberOfLeadingZeros(cells);
+        this.cellsPerWord = 64 / bitsPerCell;
+        this.keyWords = (1 + boxNames.length + cellsPerWord - 1) / cellsPerWord;
+
+        // Graine fixe : les hachages sont reproductibles d'une exécution à l'autre
+        SplittableRandom random = new SplittableRandom(0x5EED_50C0_BA4L);
+        this.zobristBoxes = new long[(labeled ? boxNames.length : 1) * cells];
+        for (int i = 0; i < zobristBoxes.length; i++) {
+            zobristBoxes[i] = random.nextLong();
+        }
+        this.zobristPlayer = new long[cells];
+        for (int i = 0; i < cells; i++) {
+            zobristPlayer[i] = random.nextLong();
+        }
+
+        this.deadSquares = computeDeadSquares();
+        this.sideComponent = computeSideComponents();
+        this.pushDistances = computePushDistances();
+        this.tunnels = computeTunnels();
+        this.patterns = null;
+        this.tunnelMacros = false;
+        this.corralPruning = false;
+    }
+
+    /**
+     * Copie d'un niveau (analyses partagées) avec d'autres options de recherche.
+     */
+    private Level(Level base, PatternDatabase patterns, boolean tunnelMacros, boolean corralPruning) {
+        this.rows = base.rows;
+        this.cols = base.cols;
+        this.cells = base.cells;
+        this.walls = base.walls;
+        this.targets = base.targets;
+        this.targetCells = base.targetCells;
+        this.initialPlayer = base.initialPlayer;
+        this.boxNames = base.boxNames;
+        this.initialBoxes = base.initialBoxes;
+        this.labeled = base.labeled;
+        this.dirOffsets = base.dirOffsets;
+        this.bitsPerCell = base.bitsPerCell;
+        this.cellsPerWord = base.cellsPerWord;
+        this.keyWords = base.keyWords;
+        this.zobristBoxes = base.zobristBoxes;
+        this.zobristPlayer = base.zobristPlayer;
+        this.deadSquares = base.deadSquares;
+        this.sideComponent = base.sideComponent;
+        this.pushDistances = base.pushDistances;
+        this.tunnels = base.tunnels;
+        this.patterns = patterns;
+        this.tunnelMacros = tunnelMacros;
+        this.corralPruning = corralPruning;
+    }
+
+    /**
+     * Le même niveau, dont l'heuristique utilise aussi la base de motifs des
+     * paires de caisses (PatternDatabase.load : calculée ou relue du cache).
+     * @param cacheDir Dossier de cache des bases de motifs, ou null (pas de cache)
+     */
+    public Level withPatterns(String cacheDir) {
+        if (patterns != null) {
+            return this;
+        }
+        PatternDatabase database = PatternDatabase.load(this, cacheDir);
+        return database == null ? this : new Level(this, database, tunnelMacros, corralPruning);
+    }
+
+    /**
+     * Le même niveau, où une caisse poussée dans un tunnel y est poussée
+     * jusqu'à la sortie en un seul successeur (voir Etat.generateSuccessors).
+     */
+    public Level withTunnelMacros() {
+        return tunnelMacros ? this : new Level(this, patterns, true, corralPruning);
+    }
+
+    /**
+     * Le même niveau, où seules les poussées d'un corral PI sont générées
+     * quand il y en a un, et où les corrals sans issue sont élagués
+     * (voir CorralPruning).
+     */
+    public Level withCorralPruning() {
+        return corralPruning ? this : new Level(this, patterns, tunnelMacros, true);
+    }
+
+    /**
+     * Le même niveau, avec les analyses demandées par les options (base de
+     * motifs, tunnels, corrals). Sans effet si elles sont déjà faites (ex: niveau
+     * tiré d'un LevelCache).
+     */
+    public Level prepare(SolverOptions options) {
+        Level level = this;
+        if (options.patternDatabase) {
+            level = level.withPatterns(options.patternCacheDir);
+        }
+        if (options.tunnelMacros) {
+            level = level.withTunnelMacros();
+        }
+        if (options.corralPruning) {
+            level = level.withCorralPruning();
+        }
+        return level;
+    }
+
+    /**
+     * Analyse une grille (symboles de SokobanSolver) : sépare les éléments
+     * statiques (murs, cibles) des éléments mobiles (joueur, caisses).
+     * @throws IllegalArgumentException si la grille n'est pas valide
+     */
+    public static Level parse(String[] grid) {
+        return parse(grid, false);
+    }
+
+    /**
+     * Analyse une grille.
+     * @param unlabeled 'true' : les noms des caisses (a, b...) sont ignorés.
+     *                  Une grille de caisses sans nom ('$', '*') est toujours lue ainsi.
+     * @throws IllegalArgumentException si la grille n'est pas valide
+     */
+    public static Level parse(String[] grid, boolean unlabeled) {
+        int rows = grid.length;
+        int cols = grid[0].length();
+        if (rows * cols > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Grille trop grande (" + rows + "x" + cols + ")");
+        }
+        BitSet walls = new BitSet(rows * cols);
+        BitSet targets = new BitSet(rows * cols);
+        int player = -1;
+        short[] boxByName = new short[SokobanSolver.BOX_NAMES.length];
+        Arrays.fill(boxByName, (short) -1);
+        BitSet anonymous = new BitSet(rows * cols); // Caisses sans nom ('$', '*')
+
+        for (int r = 0; r < rows; r++) {
+            if (grid[r].length() != cols) {
+                throw new IllegalArgumentException("Ligne " + r + " : longueur différente de " + cols);
+            }
+            for (int c = 0; c < cols; c++) {
+                char cell = grid[r].charAt(c);
+                int index = r * cols + c;
+
+                if (cell == SokobanSolver.WALL) {
+                    walls.set(index);
+                    continue;
+                }
+                if (r == 0 || c == 0 || r == rows - 1 || c == cols - 1) {
+                    throw new IllegalArgumentException("La grille doit être entourée de murs (" + r + "," + c + ")");
+                }
+                if (cell == SokobanSolver.TARGET || cell == SokobanSolver.PLAYER_ON_TARGET
+                        || SokobanSolver.isBoxOnTarget(cell)) {
+                    // Si c'est une cible, ou un objet SUR une cible
+                    targets.set(index);
+                }
+                if (cell == SokobanSolver.PLAYER || cell == SokobanSolver.PLAYER_ON_TARGET) {
+                    if (player >= 0) {
+                        throw new IllegalArgumentException("Plusieurs joueurs dans la grille");
+                    }
+                    player = index;
+                } else if (cell == SokobanSolver.BOX || cell == SokobanSolver.BOX_ON_TARGET) {
+                    anonymous.set(index);
+                } else if (SokobanSolver.isBoxSymbol(cell)) {
+                    int slot = SokobanSolver.getBoxName(cell) - 'a';
+                    if (boxByName[slot] >= 0) {
+                        throw new IllegalArgumentException("Caisse '" + SokobanSolver.getBoxName(cell) + "' en double");
+                    }
+                    boxByName[slot] = (short) index;
+                } else if (cell != SokobanSolver.TARGET && cell != SokobanSolver.FLOOR) {
+                    throw new IllegalArgumentException("Symbole inconnu '" + cell + "' en (" + r + "," + c + ")");
+                }
+            }
+        }
+        if (player < 0) {
+            throw new IllegalArgumentException("Aucun joueur dans la grille");
+        }
+
+        int named = 0;
+        for (short cell : boxByName) {
+            if (cell >= 0) named++;
+        }
+        if (named > 0 && !anonymous.isEmpty()) {
+            throw new IllegalArgumentException("Caisses nommées et sans nom mélangées dans la grille");
+        }
+
+        if (unlabeled || !anonymous.isEmpty()) {
+            // Caisses interchangeables : rangées par case croissante (forme canonique)
+            for (short cell : boxByName) {
+                if (cell >= 0) anonymous.set(cell);
+            }
+            short[] boxes = new short[anonymous.cardinality()];
+            int i = 0;
+            for (int cell = anonymous.nextSetBit(0); cell >= 0; cell = anonymous.nextSetBit(cell + 1)) {
+                boxes[i++] = (short) cell;
+            }
+            char[] names = new char[boxes.length];
+            Arrays.fill(names, SokobanSolver.BOX);
+            return new Level(rows, cols, walls, targets, player, names, boxes, false);
+        }
+
+        // Les caisses sont numérotées dans l'ordre de leurs noms
+        char[] names = new char[named];
+        short[] boxes = new short[named];
+        int i = 0;
+        for (int slot = 0; slot < boxByName.length; slot++) {
+            if (boxByName[slot] >= 0) {
+                names[i] = SokobanSolver.BOX_NAMES[slot];
+                boxes[i++] = boxByName[slot];
+            }
+        }
+        return new Level(rows, cols, walls, targets, player, names, boxes, true);
+    }
+
+    public boolean isWall(int cell) {
+        return walls.get(cell);
+    }
+
+    public boolean isTarget(int cell) {
+        return targets.get(cell);
+    }
+
+    public boolean isDead(int cell) {
+        return deadSquares.get(cell);
+    }
+
+    /**
+     * Vrai si une caisse poussée vers 'd' jusqu'en 'cell' est dans un tunnel :
+     * 'cell' n'est pas une cible, et elle comme la case du joueur qui pousse
+     * (cell - d) sont bordées de murs des deux côtés. La caisse ferme alors
+     * le couloir : la pousser plus loin tout de suite ne coûte rien.
+     */
+    public boolean isTunnel(int cell, int d) {
+        return tunnels.get(cell * 4 + d);
+    }
+
+    public int boxCount() {
+        return boxNames.length;
+    }
+
+    /**
+     * Valeur de Zobrist de la caisse 'box' sur la case 'cell'.
+     */
+    public long zobristBox(int box, int cell) {
+        return zobristBoxes[labeled ? box * cells + cell : cell];
+    }
+
+    /**
+     * Valeur de Zobrist du joueur en position normalisée 'cell'.
+     */
+    public long zobristPlayer(int cell) {
+        return zobristPlayer[cell];
+    }
+
+    /**
+     * Construit la grille visuelle (symboles de SokobanSolver) d'une configuration.
+     * Utilisée uniquement pour l'affichage : la recherche ne manipule pas de char[][].
+     */
+    public char[][] render(int player, short[] boxes) {
+        char[][] board = new char[rows][cols];
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                int cell = r * cols + c;
+                board[r][c] = isWall(cell) ? SokobanSolver.WALL : isTarget(cell) ? SokobanSolver.TARGET : SokobanSolver.FLOOR;
+            }
+        }
+        board[player / cols][player % cols] = isTarget(player) ? SokobanSolver.PLAYER_ON_TARGET : SokobanSolver.PLAYER;
+        for (int i = 0; i < boxes.length; i++) {
+            int cell = boxes[i];
+            // 'A', 'B'... si la caisse est sur une cible
+            board[cell / cols][cell % cols] = isTarget(cell) ? SokobanSolver.BOX_TO_TARGET_MAP.get(boxNames[i]) : boxNames[i];
+        }
+        return board;
+    }
+
+    /**
+     * Calcule les cases mortes.
+     * On "tire" une caisse depuis chaque cible (parcours en largeur inverse) :
+     * tirer une caisse de 'b' vers 'b + d' demande que 'b + d' et 'b + 2d'
+     * (où recule le joueur) ne soient pas des murs.
+     * Toute case de sol jamais atteinte est morte : aucune caisse ne peut
+     * être poussée de là jusqu'à une cible.
+     */
+    private BitSet computeDeadSquares() {
+        boolean[] live = new boolean[cells];
+        int[] queue = new int[cells];
+        int head = 0, tail = 0;
+
+        for (int target : targetCells) {
+            live[target] = true;
+            queue[tail++] = target;
+        }
+
+        while (head < tail) {
+            int cell = queue[head++];
+            for (int d = 0; d < 4; d++) {
+                int box = cell + dirOffsets[d];  // Nouvelle case de la caisse
+                int player = box + dirOffsets[d]; // Case où recule le joueur
+                if (!isInside(cell, d, 2)) {
+                    continue;
+                }
+                if (!live[box] && !isWall(box) && !isWall(player)) {
+                    live[box] = true;
+                    queue[tail++] = box;
+                }
+            }
+        }
+
+        BitSet dead = new BitSet(cells);
+        for (int cell = 0; cell < cells; cell++) {
+            if (!isWall(cell) && !live[cell]) {
+                dead.set(cell);
+            }
+        }
+        return dead;
+    }
+
+    /**
+     * Calcule pushDistances par un parcours en largeur inverse ("tirées")
+     * depuis chaque cible. Un nœud est (case de la caisse, côté du joueur) :
+     * le joueur peut tirer vers n'importe quel côté qu'il peut rejoindre
+     * en contournant la caisse (composantes calculées par 'computeSideComponents').
+     */
+    private int[][] computePushDistances() {
+        return computeDistances(targetCells, false);
+    }
+
+    /**
+     * Table symétrique de pushDistances pour la recherche arrière :
+     * boxDistances[i][cell] = nombre minimal de poussées pour amener la
+     * caisse i de sa case de départ jusqu'à 'cell' (INF si impossible).
+     * Calculée à la demande (seule la recherche bidirectionnelle s'en sert).
+     */
+    public int[][] computeBoxDistances() {
+        int[] sources = new int[initialBoxes.length];
+        for (int i = 0; i < sources.length; i++) {
+            sources[i] = initialBoxes[i];
+        }
+        return computeDistances(sources, true);
+    }
+
+    /**
+     * Parcours en largeur sur les nœuds (case de la caisse, côté du joueur)
+     * depuis chaque case source.
+     * @param forward 'true' : on pousse la caisse depuis la source (distance
+     *                source -> case) ; 'false' : on la tire (distance case -> source).
+     * @return distances[source][cell], INF si la case est inaccessible.
+     */
+    private int[][] computeDistances(int[] sources, boolean forward) {
+        int[][] distances = new int[sources.length][cells];
+        int[] dist = new int[cells * 4]; // Indexé par (case * 4 + côté)
+        int[] queue = new int[cells * 4];
+
+        for (int t = 0; t < sources.length; t++) {
+            Arrays.fill(dist, -1);
+            int head = 0, tail = 0;
+
+            // Caisse sur la source : le joueur peut être de n'importe quel côté
+            int source = sources[t];
+            for (int side = 0; side < 4; side++) {
+                if (sideComponent[source * 4 + side] >= 0) {
+                    dist[source * 4 + side] = 0;
+                    queue[tail++] = source * 4 + side;
+                }
+            }
+
+            while (head < tail) {
+                int node = queue[head++];
+                int box = node / 4;
+                for (int d = 0; d < 4; d++) {
+                    // Le joueur doit pouvoir rejoindre le côté 'd' de la caisse
+                    if (sideComponent[box * 4 + d] != sideComponent[node]) {
+                        continue;
+                    }
+                    int newBox;
+                    if (forward) {
+                        // Pousser depuis 'd' : la caisse va en (box - d), le joueur prend sa place
+                        newBox = box - dirOffsets[d];
+                        if (!isInside(box, d ^ 1, 1) || isWall(newBox)) {
+                            continue;
+                        }
+                    } else {
+                        // Tirer vers 'd' : la caisse va en (box + d), le joueur recule en (box + 2d)
+                        newBox = box + dirOffsets[d];
+                        if (!isInside(box, d, 2) || isWall(newBox + dirOffsets[d])) {
+                            continue;
+                        }
+                    }
+                    // Dans les deux cas, le joueur se retrouve du côté 'd' de la caisse
+                    int next = newBox * 4 + d;
+                    if (dist[next] < 0) {
+                        dist[next] = dist[node] + 1;
+                        queue[tail++] = next;
+                    }
+                }
+            }
+
+            // Distance d'une case : le meilleur côté (la position du joueur est ignorée)
+            Arrays.fill(distances[t], MinCostMatching.INF);
+            for (int node = 0; node < cells * 4; node++) {
+                if (dist[node] >= 0 && dist[node] < distances[t][node / 4]) {
+                    distances[t][node / 4] = dist[node];
+                }
+            }
+        }
+        return distances;
+    }
+
+    /**
+     * Calcule les tunnels (voir isTunnel).
+     */
+    private BitSet computeTunnels() {
+        BitSet result = new BitSet(cells * 4);
+        for (int cell = 0; cell < cells; cell++) {
+            if (isWall(cell) || isTarget(cell)) {
+                continue;
+            }
+            for (int d = 0; d < 4; d++) {
+                int pusher = cell - dirOffsets[d];
+                if (!isInside(cell, d ^ 1, 1) || isWall(pusher)) {
+                    continue;
+                }
+                if (isWalledAcross(cell, d) && isWalledAcross(pusher, d)) {
+                    result.set(cell * 4 + d);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Vrai si les deux voisines de 'cell' perpendiculaires à la direction 'd' sont des murs.
+     */
+    private boolean isWalledAcross(int cell, int d) {
+        int first = d < 2 ? 2 : 0; // Haut/Bas -> Gauche/Droite, et inversement
+        for (int side = first; side < first + 2; side++) {
+            if (isInside(cell, side, 1) && !isWall(cell + dirOffsets[side])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Pour chaque case de sol et chaque côté (case voisine non-mur), numéro
+     * de la zone du joueur quand une caisse occupe cette case : deux côtés
+     * de même numéro sont reliés sans passer par la caisse. -1 = mur.
+     */
+    private int[] computeSideComponents() {
+        int[] component = new int[cells * 4];
+        Arrays.fill(component, -1);
+        int[] mark = new int[cells]; // Numéro du dernier parcours ayant visité la case
+        int[] queue = new int[cells];
+        int label = 0;
+
+        for (int box = 0; box < cells; box++) {
+            if (isWall(box)) {
+                continue;
+            }
+            for (int side = 0; side < 4; side++) {
+                int start = box + dirOffsets[side];
+                if (!isInside(box, side, 1) || isWall(start) || component[box * 4 + side] >= 0) {
+                    continue;
+                }
+                // Parcours depuis ce côté, la caisse bloquant sa propre case
+                label++;
+                int head = 0, tail = 0;
+                mark[box] = label;
+                mark[start] = label;
+                queue[tail++] = start;
+                while (head < tail) {
+                    int cell = queue[head++];
+                    for (int d = 0; d < 4; d++) {
+                        int next = cell + dirOffsets[d];
+                        if (isInside(cell, d, 1) && mark[next] != label && !isWall(next)) {
+                            mark[next] = label;
+                            queue[tail++] = next;
+                        }
+                    }
+                }
+                // Tous les côtés atteints appartiennent à la même zone
+                for (int other = side; other < 4; other++) {
+                    int cell = box + dirOffsets[other];
+                    if (isInside(box, other, 1) && mark[cell] == label && !isWall(cell)) {
+                        component[box * 4 + other] = label;
+                    }
+                }
+            }
+        }
+        return component;
+    }
+
+    /**
+     * Vérifie que la case à 'steps' pas de 'cell' dans la direction 'd' est dans la grille.
+     */
+    private boolean isInside(int cell, int d, int steps) {
+        return SokobanSolver.isValid(cell / cols + SokobanSolver.DIRS[d][0] * steps,
+                cell % cols + SokobanSolver.DIRS[d][1] * steps, rows, cols);
+    }
+}
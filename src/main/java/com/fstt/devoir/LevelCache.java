@@ -0,0 +1,85 @@
+package com.fstt.devoir;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cache LRU des niveaux analysés (SolverOptions.levelCache).
+ * * Un Level est immuable et ne dépend que de la grille et des options
+ * d'analyse : une grille déjà résolue n'est pas réanalysée (cases mortes,
+ * distances de poussée, base de motifs, tunnels, corrals). La clé est la grille
+ * elle-même, précédée des options d'analyse ; la HashMap la range selon son
+ * hachage et compare la grille complète, sans risque de collision.
+ * * Au-delà de 'capacity' niveaux, le moins récemment utilisé est oublié.
+ * Utilisable depuis plusieurs threads (lots en parallèle) : deux threads qui
+ * analysent en même temps la même grille gardent la première analyse rangée.
+ */
+public final class LevelCache {
+
+    // Cache partagé par défaut de toutes les résolutions
+    public static final LevelCache SHARED = new LevelCache(16);
+
+    private final Map<String, Level> levels;
+    private long hits;
+    private long misses;
+
+    public LevelCache(int capacity) {
+        this.levels = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Level> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Le niveau analysé et préparé pour ces options (voir Level.prepare),
+     * tiré du cache ou analysé puis rangé.
+     * @throws IllegalArgumentException si la grille n'est pas valide
+     */
+    Level get(String[] grid, SolverOptions options) {
+        String key = key(grid, options);
+        synchronized (this) {
+            Level level = levels.get(key);
+            if (level != null) {
+                hits++;
+                return level;
+            }
+            misses++;
+        }
+        // Analyse hors du verrou : les autres niveaux restent disponibles
+        Level level = Level.parse(grid, options.unlabeledBoxes).prepare(options);
+        synchronized (this) {
+            Level cached = levels.putIfAbsent(key, level);
+            return cached != null ? cached : level;
+        }
+    }
+
+    private static String key(String[] grid, SolverOptions options) {
+        StringBuilder key = new StringBuilder();
+        key.append(options.unlabeledBoxes ? 'U' : 'L')
+                .append(options.tunnelMacros ? 'T' : '-')
+                .append(options.corralPruning ? 'C' : '-')
+                .append(options.patternDatabase ? "P" + options.patternCacheDir : "-");
+        for (String row : grid) {
+            key.append('\n').append(row);
+        }
+        return key.toString();
+    }
+
+    public synchronized long hits() {
+        return hits;
+    }
+
+    public synchronized long misses() {
+        return misses;
+    }
+
+    public synchronized int size() {
+        return levels.size();
+    }
+
+    public synchronized void clear() {
+        levels.clear();
+    }
+}
@@ -1,5 +1,8 @@
 package com.fstt.devoir;
 
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -12,44 +15,62 @@ import java.util.List;
  */
 public class Main {
 
+    // les tests donnée dans le devoire (aussi utilisés par les bancs d'essai JMH)
+    // NOTE: Les caisses '$' ont été renommées 'a', 'b', 'c', 'd'
+    // pour correspondre à la logique du solveur qui suit les caisses individuellement.
+    static final String[] TEST1 = {
+            "■■■■■■■■■■",
+            "■□□□□□□□□■",
+            "■□■■□■■□□■",
+            "■□a□T□b□□■",
+            "■□■□@□■□□■",
+            "■□c□T□d□□■",
+            "■□■■□■■□□■",
+            "■□□T□□T□□■",
+            "■□□□□□□□□■",
+            "■■■■■■■■■■"
+    };
+
+    static final String[] TEST2 = {
+            "■■■■■■■■■■",
+            "■T□■□□■□T■",
+            "■□■a□□b■□■",
+            "■□■□□□□■□■",
+            "■□□□@□□□□■",
+            "■□■□□□□■□■",
+            "■□■c□□d■□■",
+            "■T□■□□■□T■",
+            "■□□□□□□□□■",
+            "■■■■■■■■■■"
+    };
+
+    // Options de résolution (moteur choisi en argument: ASTAR ou IDA_STAR)
+    private static SolverOptions options = new SolverOptions();
+    // Grille affichée après chaque poussée ('false' avec --lurd : solution LURD seule)
+    private static boolean afficherGrilles = true;
+
     /**
      * Point d'entrée du programme.
+     * @param args (optionnels) : le moteur de recherche, ex: "IDA_STAR",
+     *             et --lurd pour n'afficher que la solution au format LURD
      */
     public static void main(String[] args) {
+        for (String arg : args) {
+            if (arg.equals("--lurd")) {
+                afficherGrilles = false;
+            } else {
+                options.algorithm(SolverOptions.Algorithm.valueOf(arg.toUpperCase()));
+            }
+        }
+
         // les tests donnée dans le devoire
         System.out.println("--- Résolution Sokoban: 1er test ---");
-        // NOTE: Les caisses '$' ont été renommées 'a', 'b', 'c', 'd'
-        // pour correspondre à la logique du solveur qui suit les caisses individuellement.
-        String[] test1 = {
-                "■■■■■■■■■■",
-                "■□□□□□□□□■",
-                "■□■■□■■□□■",
-                "■□a□T□b□□■",
-                "■□■□@□■□□■",
-                "■□c□T□d□□■",
-                "■□■■□■■□□■",
-                "■□□T□□T□□■",
-                "■□□□□□□□□■",
-                "■■■■■■■■■■"
-        };
         // Appel de la méthode statique 'solve' de la classe SokobanSolver
-        simuler(test1, "Test 1");
+        simuler(TEST1, "Test 1");
 
         System.out.println("\n--- Résolution Sokoban 2ème test ---");
-        String[] test2 = {
-                "■■■■■■■■■■",
-                "■T□■□□■□T■",
-                "■□■a□□b■□■",
-                "■□■□□□□■□■",
-                "■□□□@□□□□■",
-                "■□■□□□□■□■",
-                "■□■c□□d■□■",
-                "■T□■□□■□T■",
-                "■□□□□□□□□■",
-                "■■■■■■■■■■"
-        };
         // Appel de la méthode statique 'solve' de la classe SokobanSolver
-        simuler(test2, "Test 2");
+        simuler(TEST2, "Test 2");
     }
 
     /**
@@ -64,7 +85,7 @@ public class Main {
 
         // 2. Lancer la résolution
         // 'solve' retourne l'état final (le but)
-        Etat etatFinal = SokobanSolver.solve(grille);
+        Etat etatFinal = SokobanSolver.solve(grille, options);
 
         long endTime = System.currentTimeMillis();
 
@@ -85,6 +106,9 @@ public class Main {
 
     /**
      * Remonte la chaîne des parents et affiche la solution.
+     * Avec A*, cette chaîne est celle rejouée depuis l'état initial (PathTable) :
+     * les grilles ne sont construites qu'ici, pour les états de la solution.
+     * Tout passe par un seul flux tamponné, vidé une fois à la fin.
      * (Adapté de la méthode printSolution de votre ami)
      */
     private static void reconstruireChemin(Etat etatFinal) {
@@ -97,24 +121,39 @@ public class Main {
             courant = courant.parent;
         }
 
+        PrintWriter out = new PrintWriter(new BufferedWriter(
+                new OutputStreamWriter(System.out, System.out.charset()), 1 << 16));
         // Métrique: Longueur de la solution (coût g = nombre de poussées)
-        System.out.println("Longueur de la solution optimale: " + etatFinal.g_cost + " poussées");
-        System.out.println("Chemin des poussées avec visualisation:");
+        out.println("Longueur de la solution optimale: " + etatFinal.g_cost + " poussées");
+        // Les déplacements du joueur ne sont reconstruits que pour la solution finale
+        String lurd = SokobanSolver.toLurd(etatFinal, false);
+        out.println("Nombre total de mouvements (déplacements + poussées): " + lurd.length());
+        out.println("Solution (LURD): " + lurd);
+        if (!afficherGrilles) {
+            out.flush();
+            return;
+        }
+        out.println("Chemin des poussées avec visualisation:");
 
         int pushCount = 0;
         for (Etat etat : solutionEtats) {
             // On affiche l'état initial
             if (etat.parent == null) {
-                System.out.println("\n--- ÉTAT INITIAL ---");
-                SokobanSolver.displayBoard(etat.board);
+                out.println("\n--- ÉTAT INITIAL ---");
+                SokobanSolver.writeBoard(out, etat.getBoard());
             }
-            // On affiche uniquement les états qui résultent d'une POUSSÉE
-            else if (etat.action != null && etat.action.startsWith("PUSH")) {
-                pushCount++;
-                System.out.println("\n" + pushCount + ". " + etat.action);
-                SokobanSolver.displayBoard(etat.board);
+            // Chaque état suivant résulte d'une POUSSÉE
+            else {
+                // Macro-poussée (tunnel) : plusieurs poussées, une seule grille
+                out.println();
+                for (int step = 0; step < etat.pushSteps; step++) {
+                    pushCount++;
+                    out.println(pushCount + ". " + etat.getAction());
+                }
+                SokobanSolver.writeBoard(out, etat.getBoard());
             }
         }
-        System.out.println("\n--- FIN DE LA SOLUTION ---");
+        out.println("\n--- FIN DE LA SOLUTION ---");
+        out.flush(); // Ne pas fermer : System.out sert encore
     }
 }
\ No newline at end of file
@@ -0,0 +1,269 @@
+package com.fstt.devoir;
+
+import java.util.Arrays;
+
+/**
+ * Affectation de coût minimal Caisses -> Cibles (algorithme hongrois).
+ * * Utilisée par l'heuristique : chaque caisse doit aller sur une cible
+ * DIFFÉRENTE, et la somme des distances de l'affectation optimale ne
+ * surestime jamais le nombre de poussées restantes (heuristique admissible).
+ * * La matrice est rendue carrée (une ligne par cible) en ajoutant des
+ * lignes "fictives" de coût 0 quand il y a moins de caisses que de cibles.
+ * * Calcul incrémental : après 'solve', 'deltaWithRow' évalue la variation du
+ * coût quand UNE SEULE caisse change de case :
+ * - cas rapide O(m) : l'affectation reste optimale, seul le coût de la caisse change ;
+ * - sinon une seule augmentation à partir des potentiels déjà calculés
+ *   (O(m²) au lieu de O(m³)).
+ * * 'replaceRow' applique ce même calcul pour de bon : l'affectation d'un
+ * état se déduit de celle de l'état voisin (SearchContext.matchBoxes) sans
+ * tout recalculer.
+ */
+class MinCostMatching {
+
+    // Coût "infini" : la caisse ne peut jamais atteindre cette cible
+    public static final int INF = 1 << 20;
+
+    private final int rows; // Nombre de caisses (lignes réelles)
+    private final int m;    // Taille de la matrice carrée (nombre de cibles)
+
+    // Tableaux indexés à partir de 1 (l'indice 0 sert de sentinelle)
+    private final int[][] cost; // cost[i][j] : distance de la caisse i à la cible j
+    private final int[] u, v;   // Potentiels (variables duales) des lignes et colonnes
+    private final int[] p;      // p[j] : ligne affectée à la colonne j
+    private final int[] colOfRow; // colOfRow[i] : colonne affectée à la ligne i
+    private int total;            // Coût de l'affectation calculée par 'solve'
+
+    // Tableaux de travail (réutilisés pour éviter les allocations)
+    private final int[] way, minv;
+    private final boolean[] used;
+    private final int[] uWork, vWork, pWork, savedRow;
+
+    public MinCostMatching(int rows, int targets) {
+        this.rows = rows;
+        this.m = targets;
+        this.cost = new int[m + 1][m + 1];
+        this.u = new int[m + 1];
+        this.v = new int[m + 1];
+        this.p = new int[m + 1];
+        this.colOfRow = new int[m + 1];
+        this.way = new int[m + 1];
+        this.minv = new int[m + 1];
+        this.used = new boolean[m + 1];
+        this.uWork = new int[m + 1];
+        this.vWork = new int[m + 1];
+        this.pWork = new int[m + 1];
+        this.savedRow = new int[m + 1];
+    }
+
+    /**
+     * Calcule l'affectation optimale complète.
+     * @param costs costs[i][j] = distance de la caisse i à la cible j
+     * @return Le coût minimal (>= INF si aucune affectation n'est possible)
+     */
+    public int solve(int[][] costs) {
+        for (int i = 0; i < rows; i++) {
+            setRow(i, costs[i]);
+        }
+        return solve();
+    }
+
+    /**
+     * Remplit la ligne 'row' (une caisse) de la matrice, sans calcul (voir solve()).
+     * @param costs costs[j] = distance de la caisse à la cible j
+     */
+    public void setRow(int row, int[] costs) {
+        System.arraycopy(costs, 0, cost[row + 1], 1, m);
+    }
+
+    /**
+     * Calcule l'affectation optimale complète des lignes remplies par setRow.
+     * @return Le coût minimal (>= INF si aucune affectation n'est possible)
+     */
+    public int solve() {
+        for (int i = rows + 1; i <= m; i++) {
+            Arrays.fill(cost[i], 1, m + 1, 0); // Lignes fictives: 0
+        }
+        Arrays.fill(u, 0);
+        Arrays.fill(v, 0);
+        Arrays.fill(p, 0);
+        for (int i = 1; i <= m; i++) {
+            augment(i, u, v, p);
+        }
+        for (int j = 1; j <= m; j++) {
+            colOfRow[p[j]] = j;
+        }
+        total = totalCost(p);
+        return total;
+    }
+
+    /**
+     * Variation du coût de l'affectation optimale si la ligne 'row' (une caisse
+     * qui vient d'être poussée) est remplacée par 'newRow'. L'état calculé par
+     * 'solve' n'est pas modifié : on peut évaluer chaque successeur d'un même parent.
+     * @return nouveau coût - coût de 'solve'
+     */
+    public int deltaWithRow(int row, int[] newRow) {
+        int i = row + 1;
+        int j0 = colOfRow[i];
+        if (keepsColumn(i, newRow)) {
+            return newRow[j0 - 1] - cost[i][j0];
+        }
+
+        System.arraycopy(u, 0, uWork, 0, m + 1);
+        System.arraycopy(v, 0, vWork, 0, m + 1);
+        System.arraycopy(p, 0, pWork, 0, m + 1);
+        System.arraycopy(cost[i], 0, savedRow, 0, m + 1);
+
+        // Cas général : 1. Remplacer la ligne et libérer la colonne de la caisse
+        int newU = Integer.MAX_VALUE;
+        for (int j = 1; j <= m; j++) {
+            cost[i][j] = newRow[j - 1];
+            if (pWork[j] == i) {
+                pWork[j] = 0;
+            }
+            newU = Math.min(newU, cost[i][j] - vWork[j]);
+        }
+        // 2. Potentiel de la ligne: le plus grand qui reste réalisable
+        uWork[i] = newU;
+
+        // 3. Une seule augmentation depuis cette ligne
+        augment(i, uWork, vWork, pWork);
+        int newTotal = totalCost(pWork);
+
+        System.arraycopy(savedRow, 0, cost[i], 0, m + 1);
+        return newTotal - total;
+    }
+
+    /**
+     * Comme deltaWithRow, mais la ligne 'row' est remplacée pour de bon :
+     * l'affectation, les potentiels et le coût sont mis à jour.
+     * @return Le nouveau coût minimal
+     */
+    public int replaceRow(int row, int[] newRow) {
+        int i = row + 1;
+        int j0 = colOfRow[i];
+        if (keepsColumn(i, newRow)) {
+            u[i] = newRow[j0 - 1] - v[j0];
+            total += newRow[j0 - 1] - cost[i][j0];
+            System.arraycopy(newRow, 0, cost[i], 1, m);
+            return total;
+        }
+
+        int newU = Integer.MAX_VALUE;
+        for (int j = 1; j <= m; j++) {
+            cost[i][j] = newRow[j - 1];
+            if (p[j] == i) {
+                p[j] = 0;
+            }
+            newU = Math.min(newU, cost[i][j] - v[j]);
+        }
+        u[i] = newU;
+        augment(i, u, v, p);
+        for (int j = 1; j <= m; j++) {
+            colOfRow[p[j]] = j;
+        }
+        total = totalCost(p);
+        return total;
+    }
+
+    /**
+     * Déplace la ligne 'from' au rang 'to', les lignes entre les deux
+     * glissant d'un rang (caisses interchangeables, gardées triées) :
+     * l'affectation et les potentiels suivent leurs lignes.
+     */
+    public void moveRow(int from, int to) {
+        int f = from + 1, t = to + 1;
+        int step = f < t ? 1 : -1;
+        int[] row = cost[f];
+        int rowU = u[f], rowCol = colOfRow[f];
+        for (int r = f; r != t; r += step) {
+            cost[r] = cost[r + step];
+            u[r] = u[r + step];
+            colOfRow[r] = colOfRow[r + step];
+        }
+        cost[t] = row;
+        u[t] = rowU;
+        colOfRow[t] = rowCol;
+        for (int r = 1; r <= m; r++) {
+            p[colOfRow[r]] = r;
+        }
+    }
+
+    /**
+     * Coût de la dernière affectation calculée (solve, replaceRow).
+     */
+    public int total() {
+        return total;
+    }
+
+    /**
+     * Cas rapide : en gardant la même cible pour la caisse de la ligne 'i',
+     * les potentiels restent réalisables (aucun coût réduit négatif sur la
+     * nouvelle ligne). L'affectation reste alors optimale : seul le coût de
+     * la caisse change.
+     */
+    private boolean keepsColumn(int i, int[] newRow) {
+        int j0 = colOfRow[i];
+        int newU = newRow[j0 - 1] - v[j0];
+        for (int j = 1; j <= m; j++) {
+            if (newRow[j - 1] - v[j] < newU) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Cherche un chemin augmentant de coût minimal depuis la ligne 'i'
+     * (étape de Dijkstra de l'algorithme hongrois) et met à jour les potentiels.
+     */
+    private void augment(int i, int[] u, int[] v, int[] p) {
+        p[0] = i;
+        int j0 = 0;
+        Arrays.fill(minv, Integer.MAX_VALUE);
+        Arrays.fill(used, false);
+        do {
+            used[j0] = true;
+            int i0 = p[j0];
+            int delta = Integer.MAX_VALUE;
+            int j1 = 0;
+            for (int j = 1; j <= m; j++) {
+                if (!used[j]) {
+                    int cur = cost[i0][j] - u[i0] - v[j];
+                    if (cur < minv[j]) {
+                        minv[j] = cur;
+                        way[j] = j0;
+                    }
+                    if (minv[j] < delta) {
+                        delta = minv[j];
+                        j1 = j;
+                    }
+                }
+            }
+            for (int j = 0; j <= m; j++) {
+                if (used[j]) {
+                    u[p[j]] += delta;
+                    v[j] -= delta;
+                } else {
+                    minv[j] -= delta;
+                }
+            }
+            j0 = j1;
+        } while (p[j0] != 0);
+
+        // Inverser le chemin augmentant
+        do {
+            int j1 = way[j0];
+            p[j0] = p[j1];
+            j0 = j1;
+        } while (j0 != 0);
+    }
+
+    private int totalCost(int[] p) {
+        int total = 0;
+        for (int j = 1; j <= m; j++) {
+            total += cost[p[j]][j];
+        }
+        return total;
+    }
+}
@@ -0,0 +1,277 @@
+package com.fstt.devoir;
+
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Moteur A* parallèle (HDA* : A* à distribution par hachage).
+ * * L'espace des états est partagé entre les threads selon le hachage de la
+ * clé : chaque état a un unique "propriétaire", seul à le stocker dans SA
+ * openList et SA closedList (aucun verrou sur ces structures).
+ * Un successeur appartenant à un autre thread lui est envoyé par une file
+ * sans verrou (ConcurrentLinkedQueue).
+ * * Optimalité : les nœuds ne sont plus développés dans l'ordre global de f,
+ * donc un état peut être rouvert s'il arrive plus tard avec un meilleur g.
+ * Quand une solution de coût C est connue, tout nœud de f >= C est ignoré ;
+ * la recherche s'arrête quand plus aucun thread n'a de nœud de f < C et
+ * qu'aucun message n'est en transit : C est alors optimal.
+ */
+class ParallelAStarSearch {
+
+    private final Level level;
+    private final Worker[] workers;
+    private final SearchBudget budget;
+
+    // Meilleure solution connue (partagée) et son coût
+    private final AtomicReference<Etat> incumbent = new AtomicReference<>();
+    private volatile int incumbentCost = MinCostMatching.INF;
+
+    private volatile boolean terminated = false;
+    private volatile Throwable failure;
+
+    public ParallelAStarSearch(Level level, SolverOptions options) {
+        this.level = level;
+        this.budget = new SearchBudget(options);
+        this.workers = new Worker[Math.max(1, options.threads)];
+        for (int i = 0; i < workers.length; i++) {
+            workers[i] = new Worker(i);
+        }
+    }
+
+    /**
+     * Lance la recherche et attend sa fin.
+     * @return L'état final (gagnant) de coût optimal, ou 'null' si aucune
+     *         solution (ou si la recherche a été interrompue, voir wasAborted).
+     */
+    public Etat search(Etat etatInitial) {
+        // L'état initial est "envoyé" à son propriétaire comme un message ordinaire
+        workers[owner(etatInitial.getZobristHash())].inbox.add(etatInitial);
+        workers[0].sent++;
+
+        Thread[] threads = new Thread[workers.length];
+        for (int i = 0; i < workers.length; i++) {
+            threads[i] = new Thread(workers[i]::run, "hda-worker-" + i);
+            threads[i].start();
+        }
+
+        // Détection de la terminaison (méthode des 4 compteurs) : deux relevés
+        // successifs identiques où tous les threads sont inactifs et où chaque
+        // message envoyé a été reçu.
+        long previous = -1;
+        while (!terminated) {
+            LockSupport.parkNanos(100_000);
+            long snapshot = quiescentSnapshot();
+            if (snapshot >= 0 && snapshot == previous) {
+                terminated = true;
+            }
+            previous = snapshot;
+            if (failure != null) {
+                terminated = true;
+            }
+            // Limites de temps / de nœuds, vérifiées par le seul thread de contrôle
+            if (budget.isExceededNow(exploredNodes())) {
+                terminated = true;
+            }
+        }
+
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (failure != null) {
+            throw new IllegalStateException("Échec d'un thread de recherche", failure);
+        }
+        // Interrompue : la solution connue n'est pas prouvée optimale
+        return budget.wasExceeded() ? null : incumbent.get();
+    }
+
+    /**
+     * @return Le nombre total de messages si tous les threads sont inactifs et
+     *         que tous les messages envoyés ont été reçus, -1 sinon.
+     */
+    private long quiescentSnapshot() {
+        long sent = 0, received = 0;
+        for (Worker worker : workers) {
+            if (!worker.idle) {
+                return -1;
+            }
+            received += worker.received;
+        }
+        for (Worker worker : workers) {
+            sent += worker.sent;
+        }
+        return sent == received ? sent : -1;
+    }
+
+    /**
+     * Numéro du thread propriétaire d'un état (bits de poids fort du hachage
+     * de Zobrist, les bits de poids faible servant déjà à ranger la clé dans le ClosedSet).
+     */
+    private int owner(long hash) {
+        return (int) (((hash >>> 32) * workers.length) >>> 32);
+    }
+
+    /**
+     * Publie une solution si elle améliore la meilleure connue.
+     */
+    private synchronized void offerSolution(Etat goal) {
+        if (goal.g_cost < incumbentCost) {
+            incumbent.set(goal);
+            incumbentCost = goal.g_cost;
+        }
+    }
+
+    /**
+     * Nombre total de nœuds développés par tous les threads.
+     */
+    public long exploredNodes() {
+        long total = 0;
+        for (Worker worker : workers) {
+            total += worker.expanded;
+        }
+        return total;
+    }
+
+    /**
+     * Nombre total de poussées élaguées par tous les threads.
+     */
+    public long prunedPushes() {
+        long total = 0;
+        for (Worker worker : workers) {
+            total += worker.ctx.prunedPushes;
+        }
+        return total;
+    }
+
+    /**
+     * Compteurs détaillés de tous les threads.
+     */
+    public SearchMetrics metrics() {
+        SearchMetrics total = new SearchMetrics();
+        for (Worker worker : workers) {
+            total.add(worker.ctx.metrics);
+        }
+        return total;
+    }
+
+    public long[] progress() {
+        return budget.progress();
+    }
+
+    public boolean wasAborted() {
+        return budget.wasExceeded();
+    }
+
+    public int threadCount() {
+        return workers.length;
+    }
+
+    /**
+     * Un thread de recherche : propriétaire d'une partie des états.
+     */
+    private class Worker {
+        final int id;
+        final SearchContext ctx = new SearchContext(level);
+        final PriorityQueue<Etat> openList = new PriorityQueue<>();
+        final ClosedSet bestG = new ClosedSet(level.keyWords); // Meilleur g par état possédé
+        final ConcurrentLinkedQueue<Etat> inbox = new ConcurrentLinkedQueue<>();
+
+        // Compteurs écrits par ce seul thread, lus par le thread de contrôle
+        volatile long sent = 0;
+        volatile long received = 0;
+        volatile boolean idle = false;
+        volatile long expanded = 0;
+
+        Worker(int id) {
+            this.id = id;
+        }
+
+        void run() {
+            try {
+                int spins = 0;
+                while (!terminated) {
+                    boolean worked = drainInbox();
+                    Etat current = openList.peek();
+                    if (current != null && current.f_cost < incumbentCost) {
+                        idle = false;
+                        openList.poll();
+                        expand(current);
+                        worked = true;
+                    } else if (!worked) {
+                        // Rien à faire pour l'instant : attendre des messages
+                        idle = true;
+                        if (++spins < 100) {
+                            Thread.onSpinWait();
+                        } else {
+                            LockSupport.parkNanos(50_000);
+                        }
+                        continue;
+                    }
+                    spins = 0;
+                }
+            } catch (Throwable t) {
+                failure = t;
+            }
+        }
+
+        /**
+         * Intègre les états reçus des autres threads.
+         * @return 'true' si au moins un message a été reçu.
+         */
+        boolean drainInbox() {
+            boolean any = false;
+            Etat etat;
+            while ((etat = inbox.poll()) != null) {
+                // Redevenir actif AVANT de compter la réception (détection de terminaison)
+                idle = false;
+                received++;
+                any = true;
+                if (bestG.improve(etat.getUniqueKey(), etat.getZobristHash(), etat.g_cost)) {
+                    openList.add(etat);
+                } else {
+                    ctx.metrics.duplicates++;
+                }
+            }
+            return any;
+        }
+
+        void expand(Etat current) {
+            // Entrée périmée : l'état a été retrouvé depuis avec un meilleur g
+            if (current.g_cost > bestG.bestCost(current.getUniqueKey(), current.getZobristHash())) {
+                ctx.metrics.staleSkipped++;
+                return;
+            }
+            expanded++;
+            if (current.isGoal()) {
+                offerSolution(current);
+                return;
+            }
+            for (Etat next : current.generateSuccessors(ctx)) {
+                if (next.f_cost >= incumbentCost) {
+                    continue; // Ne peut pas améliorer la solution connue
+                }
+                if (next.isGoal()) {
+                    offerSolution(next); // Borne connue au plus tôt
+                }
+                int target = owner(next.getZobristHash());
+                if (target == id) {
+                    if (bestG.improve(next.getUniqueKey(), next.getZobristHash(), next.g_cost)) {
+                        openList.add(next);
+                    } else {
+                        ctx.metrics.duplicates++;
+                    }
+                } else {
+                    sent++;
+                    workers[target].inbox.add(next);
+                }
+            }
+            ctx.metrics.updatePeaks(openList.size(), bestG.size());
+            budget.isFull(openList.size() + (long) bestG.size(), workers.length);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.fstt.devoir;
+
+import java.util.Arrays;
+
+/**
+ * Pointeurs arrière compacts de A* : pour chaque état développé, le numéro
+ * de son parent et le code de la poussée qui y mène (voir moveCode).
+ * * Les états développés ne gardent plus de référence 'parent' : seuls
+ * 6 octets par nœud restent en mémoire (un 'int' et un 'short', rangés
+ * à plat), au lieu de toute la chaîne d'objets Etat et de leurs caisses.
+ * * La solution est reconstruite à la fin (replay) en rejouant les poussées
+ * depuis l'état initial : seuls les états de la solution sont recréés.
+ */
+final class PathTable {
+
+    private int[] parents = new int[1 << 12];
+    private short[] moves = new short[1 << 12];
+    private int size;
+
+    /**
+     * Code d'une poussée : caisse 'box' (indice dans les caisses du parent)
+     * dans la direction 'dir'. Une macro-poussée (tunnel) a le même code que
+     * sa première poussée : le rejeu la retrouve dans generateSuccessors.
+     */
+    static short moveCode(int box, int dir) {
+        return (short) (box << 2 | dir);
+    }
+
+    /**
+     * Enregistre un état développé.
+     * @param parent Numéro du parent (-1 pour l'état initial)
+     * @param move Code de la poussée depuis le parent
+     * @return Le numéro de l'état
+     */
+    int add(int parent, short move) {
+        if (size == parents.length) {
+            parents = Arrays.copyOf(parents, size * 2);
+            moves = Arrays.copyOf(moves, size * 2);
+        }
+        parents[size] = parent;
+        moves[size] = move;
+        return size++;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Recrée l'état numéro 'id' et la chaîne de ses parents en rejouant,
+     * depuis 'initial', les poussées qui y mènent.
+     */
+    Etat replay(Etat initial, int id) {
+        int length = 0;
+        for (int node = id; parents[node] >= 0; node = parents[node]) {
+            length++;
+        }
+        short[] path = new short[length];
+        for (int node = id; parents[node] >= 0; node = parents[node]) {
+            path[--length] = moves[node];
+        }
+
+        SearchContext ctx = new SearchContext(initial.level); // Les métriques de la recherche ne bougent pas
+        Etat etat = initial;
+        for (short move : path) {
+            etat = etat.replayMove(ctx, move);
+        }
+        return etat;
+    }
+}
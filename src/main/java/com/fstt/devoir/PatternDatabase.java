@@ -0,0 +1,325 @@
+package com.fstt.devoir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+
+/**
+ * Base de motifs ("pattern database") pour les PAIRES de caisses.
+ * * pairs[a][b] = nombre minimal de poussées pour amener deux caisses, en
+ * 'a' et 'b', sur deux cibles distinctes, en ne tenant compte que des murs
+ * et de la caisse partenaire (le joueur peut se placer derrière n'importe
+ * quelle caisse). Calculée par un parcours en largeur inverse ("tirées")
+ * depuis tous les couples de cibles. Contrairement à pushDistances, elle
+ * voit les caisses qui se gênent (ex: deux caisses dans un couloir).
+ * * Combinaison admissible (estimate) : une poussée ne déplace qu'une caisse,
+ * donc pour toute paire (i, j), pairs[i][j] + somme des distances simples
+ * des autres caisses ne surestime pas. Le maximum sur toutes les paires est
+ * aussi cohérent ; le moteur retient max(affectation, estimate).
+ * * Coût : estimate lit toutes les paires, O(n²) pour n caisses ; il ne sert
+ * qu'à l'état initial. Pour les successeurs, prepare (O(n²), une fois par
+ * expansion) garde la somme des distances simples du parent et, pour chaque
+ * caisse, la pire paire SANS elle ; estimateMove (O(n) lectures par poussée)
+ * ne relit que les paires de la caisse poussée, comme deltaWithRow pour
+ * l'affectation.
+ * * Ne dépend que des murs et des cibles : la table est sauvegardée dans un
+ * dossier de cache (SolverOptions.patternCacheDir), dans un fichier nommé
+ * d'après un hachage (SHA-256) de la grille statique.
+ */
+final class PatternDatabase {
+
+    private static final int MAGIC = 0x50445032; // "PDP2"
+    private static final short UNREACHABLE = -1;
+    // Au-delà, la table (live² cases) serait trop grosse
+    private static final int MAX_LIVE_CELLS = 2048;
+
+    private final int[] liveIndex; // Numéro de chaque case vivante, -1 sinon
+    private final int live;        // Nombre de cases vivantes
+    private final short[] pairs;   // pairs[liveIndex[a] * live + liveIndex[b]]
+    private final int[] single;    // Distance de poussée d'une caisse seule à la cible la plus proche
+
+    private PatternDatabase(Level level, short[] pairs) {
+        this.liveIndex = new int[level.cells];
+        int count = 0;
+        for (int cell = 0; cell < level.cells; cell++) {
+            liveIndex[cell] = isLive(level, cell) ? count++ : -1;
+        }
+        this.live = count;
+        this.pairs = pairs != null ? pairs : computePairs(level);
+        this.single = new int[level.cells];
+        Arrays.fill(single, MinCostMatching.INF);
+        for (int[] distances : level.pushDistances) {
+            for (int cell = 0; cell < level.cells; cell++) {
+                single[cell] = Math.min(single[cell], distances[cell]);
+            }
+        }
+    }
+
+    /**
+     * La base de motifs du niveau : relue depuis le cache si elle y est,
+     * sinon calculée (puis sauvegardée si 'cacheDir' n'est pas null).
+     * @return 'null' si elle ne peut rien apporter (moins de 2 caisses) ou
+     *         si le niveau est trop grand
+     * @throws UncheckedIOException Si le dossier de cache est inutilisable
+     */
+    static PatternDatabase load(Level level, String cacheDir) {
+        if (level.boxCount() < 2 || countLiveCells(level) > MAX_LIVE_CELLS) {
+            return null;
+        }
+        if (cacheDir == null) {
+            return new PatternDatabase(level, null);
+        }
+        Path file = Path.of(cacheDir).resolve("pairs-" + layoutHash(level) + ".pdb");
+        try {
+            if (Files.isRegularFile(file)) {
+                short[] cached = read(file, countLiveCells(level));
+                if (cached != null) {
+                    return new PatternDatabase(level, cached);
+                }
+                // Fichier illisible (format différent, tronqué) : recalculé et remplacé
+            }
+            PatternDatabase database = new PatternDatabase(level, null);
+            database.write(file);
+            return database;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Base de motifs : erreur sur " + file, e);
+        }
+    }
+
+    /**
+     * Borne inférieure du nombre de poussées restantes (>= INF si une paire
+     * de caisses ne peut pas atteindre deux cibles). Uniquement des lectures
+     * de tableaux : O(n²) pour n caisses.
+     */
+    int estimate(short[] boxes) {
+        int sum = 0;
+        for (short box : boxes) {
+            if (liveIndex[box] < 0) {
+                return MinCostMatching.INF;
+            }
+            sum += single[box];
+        }
+        int gain = 0; // Poussées en plus des distances simples, pour la pire paire
+        for (int i = 0; i < boxes.length; i++) {
+            int row = liveIndex[boxes[i]] * live;
+            int singleI = single[boxes[i]];
+            for (int j = i + 1; j < boxes.length; j++) {
+                short pair = pairs[row + liveIndex[boxes[j]]];
+                if (pair == UNREACHABLE) {
+                    return MinCostMatching.INF; // Les deux caisses se bloquent
+                }
+                gain = Math.max(gain, pair - singleI - single[boxes[j]]);
+            }
+        }
+        return sum + gain;
+    }
+
+    /**
+     * Prépare les estimations des successeurs de l'état 'boxes' (voir
+     * estimateMove) : O(n²) lectures, une fois par expansion.
+     * @param without Reçoit, pour chaque caisse i, le surcoût de la pire
+     *                paire qui ne contient pas i
+     * @return La somme des distances simples, ou >= INF si l'état est sans issue
+     */
+    int prepare(short[] boxes, int[] without) {
+        int sum = 0;
+        for (short box : boxes) {
+            if (liveIndex[box] < 0) {
+                return MinCostMatching.INF;
+            }
+            sum += single[box];
+        }
+        // Pire paire (a, b) : c'est la pire sans i, sauf pour i = a ou b
+        int a = -1, b = -1, worst = 0;
+        for (int i = 0; i < boxes.length; i++) {
+            for (int j = i + 1; j < boxes.length; j++) {
+                int gain = gain(boxes[i], boxes[j]);
+                if (gain >= MinCostMatching.INF) {
+                    return MinCostMatching.INF;
+                }
+                if (gain > worst) {
+                    worst = gain;
+                    a = i;
+                    b = j;
+                }
+            }
+        }
+        Arrays.fill(without, 0, boxes.length, worst);
+        if (a >= 0) {
+            without[a] = worstGainWithout(boxes, a);
+            without[b] = worstGainWithout(boxes, b);
+        }
+        return sum;
+    }
+
+    /**
+     * Estimation (égale à estimate) de l'état obtenu en poussant la caisse
+     * 'moved' de 'boxes' jusqu'en 'target' : seules les paires de cette
+     * caisse sont relues, O(n).
+     * @param sum     Retour de prepare(boxes, without)
+     * @param without Rempli par prepare pour 'boxes'
+     */
+    int estimateMove(short[] boxes, int moved, int target, int sum, int[] without) {
+        if (sum >= MinCostMatching.INF || liveIndex[target] < 0) {
+            return MinCostMatching.INF;
+        }
+        int worst = without[moved];
+        for (int j = 0; j < boxes.length; j++) {
+            if (j != moved) {
+                int gain = gain(target, boxes[j]);
+                if (gain >= MinCostMatching.INF) {
+                    return MinCostMatching.INF;
+                }
+                worst = Math.max(worst, gain);
+            }
+        }
+        return sum - single[boxes[moved]] + single[target] + worst;
+    }
+
+    /**
+     * Surcoût de la pire paire qui ne contient pas la caisse 'skip' (0 au moins).
+     */
+    private int worstGainWithout(short[] boxes, int skip) {
+        int worst = 0;
+        for (int i = 0; i < boxes.length; i++) {
+            for (int j = i + 1; j < boxes.length; j++) {
+                if (i != skip && j != skip) {
+                    worst = Math.max(worst, gain(boxes[i], boxes[j]));
+                }
+            }
+        }
+        return worst;
+    }
+
+    /**
+     * Poussées de la paire (a, b) en plus de leurs distances simples, ou INF
+     * si les deux caisses se bloquent. Les deux cases sont vivantes.
+     */
+    private int gain(int a, int b) {
+        short pair = pairs[liveIndex[a] * live + liveIndex[b]];
+        return pair == UNREACHABLE ? MinCostMatching.INF : pair - single[a] - single[b];
+    }
+
+    /**
+     * Case où une caisse peut encore atteindre une cible.
+     */
+    private static boolean isLive(Level level, int cell) {
+        return !level.isWall(cell) && !level.isDead(cell);
+    }
+
+    private static int countLiveCells(Level level) {
+        int count = 0;
+        for (int cell = 0; cell < level.cells; cell++) {
+            if (isLive(level, cell)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Parcours en largeur inverse sur les paires (a, b) de cases vivantes,
+     * depuis tous les couples de cibles distinctes. Prédécesseur : une des
+     * deux caisses revient d'une case en arrière ; la case d'où elle a été
+     * poussée et celle du joueur derrière elle sont libres (ni mur, ni partenaire).
+     */
+    private short[] computePairs(Level level) {
+        short[] dist = new short[live * live];
+        Arrays.fill(dist, UNREACHABLE);
+        int[] queue = new int[live * live];
+        int[] cellOf = new int[live];
+        for (int cell = 0; cell < level.cells; cell++) {
+            if (liveIndex[cell] >= 0) {
+                cellOf[liveIndex[cell]] = cell;
+            }
+        }
+        int head = 0, tail = 0;
+        for (int a : level.targetCells) {
+            for (int b : level.targetCells) {
+                if (a != b) {
+                    dist[liveIndex[a] * live + liveIndex[b]] = 0;
+                    queue[tail++] = liveIndex[a] * live + liveIndex[b];
+                }
+            }
+        }
+
+        int[] off = level.dirOffsets;
+        while (head < tail) {
+            int node = queue[head++];
+            int moving = cellOf[node / live];
+            int other = cellOf[node % live];
+            short next = (short) Math.min(dist[node] + 1, Short.MAX_VALUE);
+            // Chaque état est rangé dans les deux ordres : on ne fait reculer que la première caisse
+            for (int d = 0; d < 4; d++) {
+                int from = moving - off[d];  // Case de la caisse avant la poussée
+                int pusher = from - off[d];  // Case du joueur qui pousse
+                if (from == other || pusher == other || liveIndex[from] < 0 || level.isWall(pusher)) {
+                    continue;
+                }
+                int forward = liveIndex[from] * live + node % live;
+                if (dist[forward] == UNREACHABLE) {
+                    dist[forward] = next;
+                    dist[(node % live) * live + liveIndex[from]] = next;
+                    queue[tail++] = forward;
+                    queue[tail++] = (node % live) * live + liveIndex[from];
+                }
+            }
+        }
+        return dist;
+    }
+
+    /**
+     * Hachage de la grille statique (dimensions, murs, cibles) : nom du fichier de cache.
+     */
+    private static String layoutHash(Level level) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            ByteBuffer header = ByteBuffer.allocate(12).putInt(MAGIC).putInt(level.rows).putInt(level.cols);
+            digest.update(header.array());
+            digest.update(level.walls.toByteArray());
+            digest.update((byte) 0); // Séparateur murs / cibles
+            digest.update(level.targets.toByteArray());
+            return HexFormat.of().formatHex(digest.digest(), 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e); // SHA-256 est toujours disponible
+        }
+    }
+
+    /**
+     * Relit une table : en-tête (MAGIC, nombre de cases vivantes) puis live² valeurs.
+     * @return 'null' si le fichier ne correspond pas
+     */
+    private static short[] read(Path file, int live) throws IOException {
+        ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(file));
+        if (in.remaining() != 8 + live * live * 2 || in.getInt() != MAGIC || in.getInt() != live) {
+            return null;
+        }
+        short[] table = new short[live * live];
+        in.asShortBuffer().get(table);
+        return table;
+    }
+
+    /**
+     * Écrit la table dans un fichier temporaire puis le renomme : deux
+     * résolutions simultanées du même niveau ne lisent jamais un fichier à moitié écrit.
+     */
+    private void write(Path file) throws IOException {
+        Files.createDirectories(file.getParent());
+        ByteBuffer out = ByteBuffer.allocate(8 + pairs.length * 2).putInt(MAGIC).putInt(live);
+        out.asShortBuffer().put(pairs);
+        Path temp = Files.createTempFile(file.getParent(), "pairs-", ".tmp");
+        try {
+            Files.write(temp, out.array());
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+}
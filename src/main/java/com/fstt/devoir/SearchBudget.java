@@ -0,0 +1,116 @@
+package com.fstt.devoir;
+
+import java.util.Arrays;
+
+/**
+ * Limites d'UNE recherche : temps (SolverOptions.timeLimitMillis), nombre
+ * de nœuds développés (SolverOptions.nodeLimit) et nombre d'états gardés en
+ * mémoire (SolverOptions.stateLimit, voir isFull). 0 = pas de limite.
+ * * Relève aussi la progression (nœuds explorés en fonction du temps) environ
+ * toutes les PROGRESS_INTERVAL, pour SolverResult.progress et SearchListener.
+ * * Le compte à rebours part de la création du budget, c'est-à-dire du début
+ * de la recherche (pas de l'attente dans une file de lots).
+ * Une interruption du thread (Thread.interrupt) arrête aussi la recherche.
+ * * Les moteurs appellent isExceeded() à chaque nœud : l'horloge n'est lue
+ * qu'une fois tous les CLOCK_PERIOD nœuds.
+ */
+class SearchBudget {
+
+    private static final int CLOCK_PERIOD = 256; // Puissance de 2
+    private static final long PROGRESS_INTERVAL = 100_000_000; // 100 ms
+
+    private final long start;     // System.nanoTime() au début de la recherche
+    private final long deadline;  // System.nanoTime() limite
+    private final long nodeLimit;
+    private final long stateLimit;
+    private volatile boolean exceeded = false;
+
+    // Relevés de progression : paires (ms depuis le début, nœuds explorés)
+    private final SearchListener listener;
+    private long[] progress = new long[32];
+    private int progressLength = 0;
+    private long lastProgress;
+
+    public SearchBudget(SolverOptions options) {
+        this.start = System.nanoTime();
+        this.lastProgress = start;
+        this.listener = options.listener;
+        this.deadline = options.timeLimitMillis > 0
+                ? start + options.timeLimitMillis * 1_000_000
+                : Long.MAX_VALUE;
+        this.nodeLimit = options.nodeLimit > 0 ? options.nodeLimit : Long.MAX_VALUE;
+        this.stateLimit = options.stateLimit > 0 ? options.stateLimit : Long.MAX_VALUE;
+    }
+
+    /**
+     * Limite mémoire, appelée après chaque expansion (à côté de
+     * SearchMetrics.updatePeaks). Au-delà, isExceeded renvoie 'true'.
+     * @param states États gardés à la fois (openList + closedList)
+     * @param share  Nombre de threads se partageant la limite (HDA* : chacun
+     *               en garde une part égale, les états étant répartis par hachage)
+     * @return 'true' si la recherche doit s'arrêter
+     */
+    public boolean isFull(long states, int share) {
+        if (!exceeded && states > stateLimit / share) {
+            exceeded = true;
+        }
+        return exceeded;
+    }
+
+    /**
+     * @param exploredNodes Nombre de nœuds développés jusqu'ici
+     * @return 'true' si la recherche doit s'arrêter (définitivement)
+     */
+    public boolean isExceeded(long exploredNodes) {
+        if (!exceeded && (exploredNodes >= nodeLimit
+                || ((exploredNodes & (CLOCK_PERIOD - 1)) == 0 && isExpired(exploredNodes)))) {
+            exceeded = true;
+        }
+        return exceeded;
+    }
+
+    /**
+     * Comme isExceeded, en lisant l'horloge à chaque appel
+     * (pour les boucles qui ne développent pas de nœud, ex: contrôle de HDA*).
+     */
+    public boolean isExceededNow(long exploredNodes) {
+        if (!exceeded && (exploredNodes >= nodeLimit || isExpired(exploredNodes))) {
+            exceeded = true;
+        }
+        return exceeded;
+    }
+
+    private boolean isExpired(long exploredNodes) {
+        long now = System.nanoTime();
+        if (now - lastProgress >= PROGRESS_INTERVAL) {
+            recordProgress(now, exploredNodes);
+        }
+        return now > deadline || Thread.currentThread().isInterrupted();
+    }
+
+    private void recordProgress(long now, long exploredNodes) {
+        lastProgress = now;
+        if (progressLength == progress.length) {
+            progress = Arrays.copyOf(progress, progressLength * 2);
+        }
+        progress[progressLength++] = (now - start) / 1_000_000;
+        progress[progressLength++] = exploredNodes;
+        if (listener != null) {
+            listener.onProgress(exploredNodes, now - start);
+        }
+    }
+
+    /**
+     * Relevés de progression : paires (ms depuis le début, nœuds explorés).
+     */
+    public long[] progress() {
+        return Arrays.copyOf(progress, progressLength);
+    }
+
+    /**
+     * 'true' si une limite a été atteinte : l'absence de solution ne prouve rien.
+     */
+    public boolean wasExceeded() {
+        return exceeded;
+    }
+}
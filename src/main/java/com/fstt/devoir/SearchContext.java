@@ -0,0 +1,224 @@
+package com.fstt.devoir;
+
+import java.util.Arrays;
+
+/**
+ * Espace de travail d'UNE résolution (un seul thread).
+ * * Regroupe les tableaux temporaires réutilisés d'une expansion à l'autre
+ * par Etat.generateSuccessors(), pour ne pas allouer de tableau de la taille
+ * de la grille à chaque nœud, ainsi que les métriques de la recherche.
+ */
+class SearchContext {
+
+    public final Level level;
+
+    // boxAt[cell] : indice de la caisse sur cette case, ou -1
+    // (rempli pour l'état en cours d'expansion)
+    final int[] boxAt;
+
+    // Marques "horodatées" : une case est marquée si mark[cell] == stamp.
+    // Incrémenter le 'stamp' efface toutes les marques en O(1).
+    final int[] reachMark; // Zone accessible de l'état en cours d'expansion
+    int reachStamp;
+    final int[] mark;      // Parcours temporaires (successeurs, gel...)
+    int stamp;
+    final int[] queue;
+    // Test de gel en cours (Etat.isFreezeDeadlock) : une caisse gelée est hors cible
+    boolean frozenOffTarget;
+
+    // Heuristique : affectation réutilisée à chaque expansion
+    // distances[t][cell] : coût d'une caisse en 'cell' vers la destination t
+    // (Level.pushDistances, ou Level.computeBoxDistances() pour la recherche arrière)
+    final int[][] distances;
+    final MinCostMatching matching;
+    final int[] costRow;
+    // Base de motifs des paires (Level.patterns), seulement avec les distances
+    // de la recherche avant : null sinon
+    final PatternDatabase patterns;
+    // Base de motifs : préparation de l'état en cours d'expansion (voir preparePatterns)
+    private final int[] patternWithout;
+    private int patternSum;
+    // Caisses dont 'matching' contient l'affectation (voir matchBoxes)
+    private final short[] matchedBoxes;
+    private boolean matched;
+    // Élagage par corral PI (Level.corralPruning), seulement pour la recherche avant : null sinon
+    final CorralPruning corrals;
+
+    // Les temps des métriques (h, corrals) ne sont relevés que sur une
+    // expansion sur TIMING_SAMPLE, puis multipliés d'autant : deux appels à
+    // System.nanoTime() par successeur coûteraient autant que le calcul mesuré
+    static final int TIMING_SAMPLE = 64;
+    private int expansions;
+
+    // Métrique: nombre de poussées élaguées (case morte, caisse gelée, sans affectation)
+    public long prunedPushes = 0;
+    // Autres compteurs de la recherche (propres à ce thread)
+    public final SearchMetrics metrics = new SearchMetrics();
+
+    public SearchContext(Level level) {
+        this(level, level.pushDistances);
+    }
+
+    public SearchContext(Level level, int[][] distances) {
+        this.level = level;
+        this.distances = distances;
+        this.boxAt = new int[level.cells];
+        Arrays.fill(boxAt, -1);
+        this.reachMark = new int[level.cells];
+        this.mark = new int[level.cells];
+        this.queue = new int[level.cells];
+        int size = Math.max(level.boxCount(), distances.length);
+        this.matching = new MinCostMatching(level.boxCount(), size);
+        this.costRow = new int[size];
+        this.matchedBoxes = new short[level.boxCount()];
+        this.patternWithout = new int[level.boxCount()];
+        this.patterns = distances == level.pushDistances ? level.patterns : null;
+        this.corrals = level.corralPruning && distances == level.pushDistances ? new CorralPruning(level) : null;
+    }
+
+    /**
+     * Vrai pour une expansion sur TIMING_SAMPLE : ses temps sont à relever.
+     */
+    boolean sampleTiming() {
+        return (++expansions & (TIMING_SAMPLE - 1)) == 0;
+    }
+
+    /**
+     * Efface les marques de 'reachMark' (nouveau parcours de zone accessible).
+     */
+    int newReachStamp() {
+        if (reachStamp == Integer.MAX_VALUE) {
+            Arrays.fill(reachMark, 0);
+            reachStamp = 0;
+        }
+        return ++reachStamp;
+    }
+
+    /**
+     * Efface les marques de 'mark' (nouveau parcours temporaire).
+     */
+    int newStamp() {
+        if (stamp == Integer.MAX_VALUE) {
+            Arrays.fill(mark, 0);
+            stamp = 0;
+        }
+        return ++stamp;
+    }
+
+    /**
+     * Place les caisses d'un état dans 'boxAt'.
+     */
+    void placeBoxes(short[] boxes) {
+        for (int i = 0; i < boxes.length; i++) {
+            boxAt[boxes[i]] = i;
+        }
+    }
+
+    /**
+     * Retire les caisses d'un état de 'boxAt'.
+     */
+    void clearBoxes(short[] boxes) {
+        for (short cell : boxes) {
+            boxAt[cell] = -1;
+        }
+    }
+
+    /**
+     * Remplit 'costRow' avec la ligne de coûts d'une caisse en 'cell' :
+     * sa distance de poussée à chaque cible. S'il y a plus de caisses que
+     * de cibles, les colonnes en trop sont infinies (niveau insoluble).
+     */
+    int[] fillCostRow(int cell) {
+        Arrays.fill(costRow, MinCostMatching.INF);
+        for (int t = 0; t < distances.length; t++) {
+            costRow[t] = distances[t][cell];
+        }
+        return costRow;
+    }
+
+    /**
+     * Heuristique complétée par la base de motifs : max(affectation, paires).
+     * @param matching Coût de l'affectation caisses -> cibles pour 'boxes'
+     */
+    int withPatterns(int matching, short[] boxes) {
+        if (patterns == null || matching >= MinCostMatching.INF) {
+            return matching;
+        }
+        return Math.max(matching, patterns.estimate(boxes));
+    }
+
+    /**
+     * Prépare la base de motifs pour les successeurs de l'état 'boxes'
+     * (PatternDatabase.prepare), une fois par expansion.
+     */
+    void preparePatterns(short[] boxes) {
+        if (patterns != null) {
+            patternSum = patterns.prepare(boxes, patternWithout);
+        }
+    }
+
+    /**
+     * Comme withPatterns, pour le successeur où la caisse 'moved' de 'boxes'
+     * (l'état préparé par preparePatterns) arrive en 'target' : O(n).
+     */
+    int withPatterns(int matching, short[] boxes, int moved, int target) {
+        if (patterns == null || matching >= MinCostMatching.INF) {
+            return matching;
+        }
+        return Math.max(matching, patterns.estimateMove(boxes, moved, target, patternSum, patternWithout));
+    }
+
+    /**
+     * Affectation optimale des caisses 'boxes' aux cibles, laissée dans
+     * 'matching' (pour deltaWithRow). Elle est déduite de l'affectation
+     * précédente quand une seule caisse a bougé depuis (cas du parent puis
+     * de l'enfant développé juste après : IDA*, ou A* qui sort le nœud le
+     * plus profond d'abord) : une ligne remplacée, en O(m) ou O(m²).
+     * Sinon, calcul complet dans la matrice de 'matching', sans allocation.
+     * @return Le coût de l'affectation (>= MinCostMatching.INF si impossible)
+     */
+    int matchBoxes(short[] boxes) {
+        int cost = matched ? rematch(boxes) : -1;
+        if (cost < 0) {
+            for (int i = 0; i < boxes.length; i++) {
+                matching.setRow(i, fillCostRow(boxes[i]));
+            }
+            cost = matching.solve();
+        }
+        System.arraycopy(boxes, 0, matchedBoxes, 0, boxes.length);
+        matched = true;
+        return cost;
+    }
+
+    /**
+     * Met à jour l'affectation si 'boxes' ne diffère des caisses déjà
+     * affectées que par UNE caisse déplacée. Caisses interchangeables : la
+     * caisse déplacée a pu changer de rang (cases triées), les rangs entre
+     * l'ancien et le nouveau glissent d'un cran.
+     * @return Le nouveau coût, ou -1 si plus d'une caisse diffère
+     */
+    private int rematch(short[] boxes) {
+        int lo = 0, hi = boxes.length - 1;
+        while (lo <= hi && matchedBoxes[lo] == boxes[lo]) {
+            lo++;
+        }
+        if (lo > hi) {
+            return matching.total();
+        }
+        while (matchedBoxes[hi] == boxes[hi]) {
+            hi--;
+        }
+        if (lo == hi) {
+            return matching.replaceRow(lo, fillCostRow(boxes[lo]));
+        }
+        if (Arrays.equals(matchedBoxes, lo + 1, hi + 1, boxes, lo, hi)) {
+            matching.moveRow(lo, hi); // La caisse du rang 'lo' est maintenant au rang 'hi'
+            return matching.replaceRow(hi, fillCostRow(boxes[hi]));
+        }
+        if (Arrays.equals(matchedBoxes, lo, hi, boxes, lo + 1, hi + 1)) {
+            matching.moveRow(hi, lo);
+            return matching.replaceRow(lo, fillCostRow(boxes[lo]));
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,35 @@
+package com.fstt.devoir;
+
+/**
+ * Observateur d'une résolution (SolverOptions.listener).
+ * * Les méthodes ne sont pas appelées sur le chemin chaud : onProgress environ
+ * toutes les 100 ms, onSolution à chaque solution améliorée, onFinish une fois par niveau. Elles peuvent être appelées
+ * depuis plusieurs threads (lots en parallèle, thread de contrôle de HDA*).
+ */
+public interface SearchListener {
+
+    /**
+     * Progression de la recherche en cours.
+     * @param exploredNodes Nœuds explorés depuis le début de la recherche
+     * @param elapsedNanos  Temps écoulé depuis le début de la recherche
+     */
+    default void onProgress(long exploredNodes, long elapsedNanos) {
+    }
+
+    /**
+     * Nouvelle meilleure solution du moteur ANYTIME (dès qu'elle est trouvée),
+     * ou meilleure borne prouvée pour la même solution (fin d'un tour).
+     * @param goal         L'état final de la solution (goal.g_cost poussées)
+     * @param bound        Borne prouvée : la solution a au plus 'bound' fois
+     *                     le nombre optimal de poussées (1 : optimale)
+     * @param elapsedNanos Temps écoulé depuis le début de la recherche
+     */
+    default void onSolution(Etat goal, double bound, long elapsedNanos) {
+    }
+
+    /**
+     * Fin d'une résolution, avec toutes ses métriques.
+     */
+    default void onFinish(SolverResult result) {
+    }
+}
@@ -0,0 +1,54 @@
+package com.fstt.devoir;
+
+/**
+ * Compteurs détaillés d'une recherche (en plus des nœuds explorés et des
+ * poussées élaguées de SolverResult).
+ * * Chaque thread de recherche a ses propres compteurs (dans son SearchContext) :
+ * de simples champs 'long', sans verrou sur le chemin chaud. Les compteurs
+ * des différents threads / sens de recherche sont additionnés à la fin (add).
+ */
+public class SearchMetrics {
+
+    public long generated;      // Successeurs créés (après élagage des impasses)
+    public long duplicates;     // Successeurs écartés : état déjà connu avec un g aussi bon
+    public long staleSkipped;   // Entrées de l'openList périmées (état déjà développé) ignorées
+    public long peakOpen;       // Taille maximale de l'openList (IDA* : profondeur maximale)
+    public long peakClosed;     // Taille maximale de la closedList (IDA* : 0, table de taille fixe)
+    public long heuristicNanos; // Temps passé à calculer h (affectation caisses -> cibles),
+                                // estimé sur une expansion sur SearchContext.TIMING_SAMPLE
+    public long bytesWritten;   // Recherche externe : octets écrits sur disque
+    public long bytesRead;      // Recherche externe : octets relus depuis le disque
+    public long corralPruned;   // Corrals PI : poussées non générées (hors du corral retenu)
+    public long corralDeadlocks; // Corrals PI : états élagués (corral sans issue)
+    public long corralNanos;    // Temps passé à chercher les corrals (estimé comme heuristicNanos)
+
+    /**
+     * Met à jour les tailles maximales.
+     */
+    void updatePeaks(long open, long closed) {
+        if (open > peakOpen) {
+            peakOpen = open;
+        }
+        if (closed > peakClosed) {
+            peakClosed = closed;
+        }
+    }
+
+    /**
+     * Ajoute les compteurs d'un autre thread. Les tailles maximales sont
+     * additionnées : chaque thread garde une partie disjointe des états.
+     */
+    void add(SearchMetrics other) {
+        generated += other.generated;
+        duplicates += other.duplicates;
+        staleSkipped += other.staleSkipped;
+        peakOpen += other.peakOpen;
+        peakClosed += other.peakClosed;
+        heuristicNanos += other.heuristicNanos;
+        bytesWritten += other.bytesWritten;
+        bytesRead += other.bytesRead;
+        corralPruned += other.corralPruned;
+        corralDeadlocks += other.corralDeadlocks;
+        corralNanos += other.corralNanos;
+    }
+}
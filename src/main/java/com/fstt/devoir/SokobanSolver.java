@@ -1,5 +1,7 @@
 package com.fstt.devoir;
 
+import java.io.ByteArrayOutputStream;
+import java.io.PrintWriter;
 import java.util.*;
 
 /**
@@ -23,14 +25,18 @@ public class SokobanSolver {
     public static final char[] BOX_NAMES = {'a', 'b', 'c', 'd'};
     // Les caisses DANS leurs cibles (en majuscules)
     public static final char[] BOX_ON_TARGET_NAMES = {'A', 'B', 'C', 'D'};
+    // Caisses interchangeables (sans nom, en nombre illimité), comme au format XSB
+    public static final char BOX = '$';
+    public static final char BOX_ON_TARGET = '*';
 
     // Map pour convertir 'a' -> 'A' et 'A' -> 'a'
     public static final Map<Character, Character> BOX_TO_TARGET_MAP = Map.of(
-            'a', 'A', 'b', 'B', 'c', 'C', 'd', 'D',
-            'A', 'a', 'B', 'b', 'C', 'c', 'D', 'd'
+            'a', 'A', 'b', 'B', 'c', 'C', 'd', 'D', BOX, BOX_ON_TARGET,
+            'A', 'a', 'B', 'b', 'C', 'c', 'D', 'd', BOX_ON_TARGET, BOX
     );
     // Un Set pour vérifier rapidement si un char est une caisse (maj ou min)
-    public static final Set<Character> ALL_BOX_SYMBOLS = new HashSet<>(Arrays.asList('a', 'b', 'c', 'd', 'A', 'B', 'C', 'D'));
+    public static final Set<Character> ALL_BOX_SYMBOLS = new HashSet<>(Arrays.asList(
+            'a', 'b', 'c', 'd', 'A', 'B', 'C', 'D', BOX, BOX_ON_TARGET));
 
     // --- DIRECTIONS ---
     // Mouvements: {Haut, Bas, Gauche, Droite}
@@ -41,30 +47,191 @@ public class SokobanSolver {
     public static final String[] DIR_NAMES = {
             "UP", "DOWN", "LEFT", "RIGHT"
     };
+    // Lettres LURD de chaque direction (format standard des solutions :
+    // minuscule pour un déplacement, majuscule pour une poussée)
+    public static final char[] LURD = {'u', 'd', 'l', 'r'};
+    // Code d'un pas de la solution (buildSteps) : direction, + PUSH_STEP pour une poussée
+    static final int PUSH_STEP = 4;
 
     /**
-     * Méthode de résolution principale (la boucle A*).
+     * Méthode de résolution principale (avec l'algorithme A* par défaut).
      * Trouve la séquence de Poussées la plus courte.
      * * @param level La grille de jeu (tableau de String)
      * @return L'état final (gagnant), ou 'null' si aucune solution n'est trouvée.
      */
     public static Etat solve(String[] level) {
+        return solve(level, new SolverOptions());
+    }
+
+    /**
+     * Méthode de résolution avec options (choix du moteur de recherche...).
+     * Affiche les métriques de la recherche.
+     * * @param level La grille de jeu (tableau de String)
+     * @param options Les options de résolution
+     * @return L'état final (gagnant), ou 'null' si aucune solution n'est trouvée.
+     */
+    public static Etat solve(String[] level, SolverOptions options) {
+        SolverResult result = solve(analyze(level, options), options);
+        result.print();
+        return result.goal;
+    }
 
-        // 1. Initialisation
-        // Crée l'état initial en analysant la grille
-        Etat etatInitial = new Etat(level);
+    /**
+     * Analyse une grille pour ces options, ou la reprend du cache
+     * (SolverOptions.levelCache) si elle a déjà été résolue.
+     * @throws IllegalArgumentException si la grille n'est pas valide
+     */
+    static Level analyze(String[] level, SolverOptions options) {
+        if (options.levelCache != null) {
+            return options.levelCache.get(level, options);
+        }
+        return Level.parse(level, options.unlabeledBoxes).prepare(options);
+    }
+
+    /**
+     * Résout un niveau déjà analysé, sans rien afficher.
+     * @return L'état final et les métriques de la recherche
+     */
+    static SolverResult solve(Level niveau, SolverOptions options) {
+        SolverResult result = new SolverResult();
+        long debut = System.nanoTime();
+        niveau = niveau.prepare(options); // Déjà fait pour un niveau tiré du cache
+
+        // 1. Initialisation : l'état initial
+        Etat etatInitial = new Etat(niveau);
         if (etatInitial.isGoal()) {
-            System.out.println("Niveau déjà résolu!");
-            return etatInitial;
+            result.goal = etatInitial; // Niveau déjà résolu
+            if (options.listener != null) {
+                options.listener.onFinish(result);
+            }
+            return result;
         }
 
-        // openList : 'PriorityQueue' trie les états par 'f_cost' (f = g + h)
-        PriorityQueue<Etat> openList = new PriorityQueue<>(Comparator.comparingInt(s -> s.f_cost));
+        // Solution déjà connue (base persistante) : pas de recherche
+        if (options.solutionStore != null) {
+            result.goal = options.solutionStore.find(niveau);
+            if (result.goal != null) {
+                result.engine = "la base de solutions";
+                result.millis = (System.nanoTime() - debut) / 1_000_000;
+                if (options.listener != null) {
+                    options.listener.onFinish(result);
+                }
+                return result;
+            }
+        }
 
-        // closedList : 'HashSet' stocke les clés uniques des états déjà explorés
-        Set<String> closedList = new HashSet<>();
+        switch (options.algorithm) {
+            case IDA_STAR:
+                IdaStarSearch ida = new IdaStarSearch(niveau, options);
+                result.goal = ida.search(etatInitial);
+                result.engine = "IDA*";
+                result.exploredNodes = ida.exploredNodes;
+                result.prunedPushes = ida.context().prunedPushes;
+                result.timedOut = ida.wasAborted();
+                result.metrics = ida.context().metrics;
+                result.progress = ida.progress();
+                break;
+            case PARALLEL_ASTAR:
+                ParallelAStarSearch hda = new ParallelAStarSearch(niveau, options);
+                result.goal = hda.search(etatInitial);
+                double secondes = Math.max(1e-9, (System.nanoTime() - debut) / 1e9);
+                result.engine = "HDA* (" + hda.threadCount() + " threads)";
+                result.exploredNodes = hda.exploredNodes();
+                result.details = " (" + Math.round(hda.exploredNodes() / secondes) + " nœuds/s)";
+                result.prunedPushes = hda.prunedPushes();
+                result.timedOut = hda.wasAborted();
+                result.metrics = hda.metrics();
+                result.progress = hda.progress();
+                break;
+            case BIDIRECTIONAL:
+                if (BidirectionalSearch.supports(niveau)) {
+                    BidirectionalSearch bidir = new BidirectionalSearch(niveau, options);
+                    result.goal = bidir.search(etatInitial);
+                    result.engine = "la recherche bidirectionnelle";
+                    result.exploredNodes = bidir.forwardExpanded() + bidir.backwardExpanded();
+                    result.details = " (" + bidir.forwardExpanded() + " en avant + "
+                            + bidir.backwardExpanded() + " en arrière)";
+                    result.prunedPushes = bidir.prunedPushes();
+                    result.timedOut = bidir.wasAborted();
+                    result.metrics = bidir.metrics();
+                    result.progress = bidir.progress();
+                    break;
+                }
+                // Recherche arrière impossible (caisses ≠ cibles) : A* classique
+                aStar(niveau, etatInitial, options, result);
+                result.engine = "A* (bidirectionnel impossible : caisses ≠ cibles)";
+                break;
+            case EXTERNAL_ASTAR:
+                ExternalSearch external = new ExternalSearch(niveau, options);
+                result.goal = external.search(etatInitial);
+                SearchMetrics disk = external.context().metrics;
+                result.engine = "A* externe";
+                result.exploredNodes = external.exploredNodes;
+                result.details = " (" + (disk.bytesWritten >> 20) + " Mo écrits, "
+                        + (disk.bytesRead >> 20) + " Mo lus)";
+                result.prunedPushes = external.context().prunedPushes;
+                result.timedOut = external.wasAborted();
+                result.metrics = disk;
+                result.progress = external.progress();
+                break;
+            case ANYTIME:
+                AnytimeSearch anytime = new AnytimeSearch(niveau, options);
+                result.goal = anytime.search(etatInitial);
+                result.engine = "ARA*";
+                result.exploredNodes = anytime.exploredNodes;
+                if (result.goal != null) {
+                    result.details = String.format(Locale.ROOT, " (%d solutions, la première en %d ms, borne %.2f)",
+                            anytime.solutions().length / 3, anytime.solutions()[0], anytime.bound());
+                }
+                result.prunedPushes = anytime.context().prunedPushes;
+                result.timedOut = anytime.wasAborted();
+                result.metrics = anytime.context().metrics;
+                result.progress = anytime.progress();
+                result.solutions = anytime.solutions();
+                break;
+            case ASTAR:
+            default:
+                aStar(niveau, etatInitial, options, result);
+                break;
+        }
+        // Solution optimale (recherche menée à son terme) : rangée pour la prochaine fois
+        if (options.solutionStore != null && result.goal != null && !result.timedOut) {
+            options.solutionStore.store(niveau, result.goal);
+        }
+        result.millis = (System.nanoTime() - debut) / 1_000_000;
+        if (options.listener != null) {
+            options.listener.onFinish(result);
+        }
+        return result;
+    }
+
+    /**
+     * La boucle A*.
+     * Remplit 'result' (état final et métriques).
+     */
+    private static void aStar(Level niveau, Etat etatInitial, SolverOptions options, SolverResult result) {
+        result.engine = "A*";
+
+        // openList : seaux indexés par (f, g), le plus petit f puis le plus grand g d'abord
+        BucketOpenList openList = new BucketOpenList();
+
+        // closedList : meilleur g connu pour chaque clé compacte (long[]) d'état,
+        // rangée selon son hachage de Zobrist (mis à jour à chaque poussée).
+        // Un successeur n'entre dans l'openList que s'il améliore ce g.
+        ClosedSet bestG = new ClosedSet(niveau.keyWords);
+
+        // Pointeurs arrière des états développés : les successeurs ne gardent
+        // pas leur parent, la solution est rejouée à la fin
+        PathTable trail = new PathTable();
+
+        // Tableaux de travail réutilisés par 'generateSuccessors'
+        SearchContext ctx = new SearchContext(niveau);
+
+        // Limites de temps et de nœuds (SolverOptions)
+        SearchBudget budget = new SearchBudget(options);
 
         openList.add(etatInitial);
+        bestG.improve(etatInitial.getUniqueKey(), etatInitial.getZobristHash(), 0);
         int exploredNodes = 0; // Métrique: Nombre de nœuds explorés
 
         // 2. Boucle A*
@@ -73,46 +240,153 @@ public class SokobanSolver {
             // Prendre le meilleur état (celui avec le plus petit f_cost)
             Etat current = openList.poll();
             exploredNodes++;
+            if (budget.isExceeded(exploredNodes)) {
+                result.timedOut = true; // Interrompue : rien n'est prouvé
+                break;
+            }
 
-            // Si cet état est déjà dans la closedList, on l'ignore
-            if (closedList.contains(current.getUniqueKey())) {
+            // Entrée périmée : l'état a été retrouvé depuis avec un meilleur g
+            if (current.g_cost > bestG.bestCost(current.getUniqueKey(), current.getZobristHash())) {
+                ctx.metrics.staleSkipped++;
                 continue;
             }
 
+            int id = trail.add(current.parentId, current.move);
+
             // 3. Vérification de la Victoire
             if (current.isGoal()) {
-                // Métrique: Nombre de nœuds explorés
-                System.out.println("Nombre de nœuds explorés par A*: " + exploredNodes);
-                return current; // Solution trouvée!
+                result.goal = trail.replay(etatInitial, id); // Solution trouvée!
+                break;
             }
 
-            // 4. Exploration
-            // Ajouter l'état actuel à la closedList
-            closedList.add(current.getUniqueKey());
-
-            // 5. Génération des successeurs
-            // 'generateSuccessors' crée tous les états atteignables (MOVE ou PUSH)
-            for (Etat nextState : current.generateSuccessors()) {
-                if (!closedList.contains(nextState.getUniqueKey())) {
+            // 4. Génération des successeurs
+            // 'generateSuccessors' crée un état par poussée possible depuis la zone du joueur
+            for (Etat nextState : current.generateSuccessors(ctx)) {
+                // Déjà atteint avec un g au moins aussi bon : inutile de l'ajouter
+                if (bestG.improve(nextState.getUniqueKey(), nextState.getZobristHash(), nextState.g_cost)) {
+                    nextState.parent = null; // 'current' n'est gardé que par son numéro
+                    nextState.parentId = id;
                     openList.add(nextState);
+                } else {
+                    ctx.metrics.duplicates++;
+                }
+            }
+            ctx.metrics.updatePeaks(openList.size(), bestG.size());
+            budget.isFull(openList.size() + (long) bestG.size(), 1);
+        }
+
+        // 5. Métriques (result.goal reste 'null' en cas d'échec)
+        result.exploredNodes = exploredNodes;
+        result.prunedPushes = ctx.prunedPushes;
+        result.metrics = ctx.metrics;
+        result.progress = budget.progress();
+    }
+
+    /**
+     * Reconstruit la suite complète des actions (MOVE et PUSH) de la solution.
+     * La recherche ne crée des nœuds que pour les poussées : les déplacements
+     * du joueur entre deux poussées sont retrouvés ici, une seule fois,
+     * pour la solution finale.
+     * @param etatFinal L'état final retourné par 'solve'
+     * @return La liste ordonnée des actions (ex: "MOVE UP", "PUSH 'a' LEFT")
+     */
+    public static List<String> buildFullPath(Etat etatFinal) {
+        LinkedList<Etat> etats = new LinkedList<>();
+        for (Etat courant = etatFinal; courant != null; courant = courant.parent) {
+            etats.addFirst(courant);
+        }
+
+        List<String> actions = new ArrayList<>();
+        Etat precedent = null;
+        for (Etat etat : etats) {
+            if (precedent != null) {
+                // Le joueur doit d'abord rejoindre la case derrière la caisse poussée
+                // (macro-poussée : 'pushSteps' poussées dans la même direction)
+                int from = etat.player - etat.pushSteps * etat.level.dirOffsets[etat.pushDir];
+                actions.addAll(precedent.walkTo(from));
+                for (int step = 0; step < etat.pushSteps; step++) {
+                    actions.add(etat.getAction());
                 }
             }
+            precedent = etat;
         }
+        return actions;
+    }
 
-        // 6. Échec
-        System.out.println("Nombre de nœuds explorés par A*: " + exploredNodes);
-        return null; // Solution non trouvée
+    /**
+     * Pas de la solution, un octet chacun : direction (indice dans DIRS),
+     * + PUSH_STEP pour une poussée. Comme buildFullPath, sans créer de String.
+     * @param etatFinal L'état final retourné par 'solve'
+     */
+    static byte[] buildSteps(Etat etatFinal) {
+        LinkedList<Etat> etats = new LinkedList<>();
+        for (Etat courant = etatFinal; courant != null; courant = courant.parent) {
+            etats.addFirst(courant);
+        }
+
+        ByteArrayOutputStream steps = new ByteArrayOutputStream();
+        Etat precedent = null;
+        for (Etat etat : etats) {
+            if (precedent != null) {
+                int from = etat.player - etat.pushSteps * etat.level.dirOffsets[etat.pushDir];
+                for (int d : precedent.walkDirections(from)) {
+                    steps.write(d);
+                }
+                for (int step = 0; step < etat.pushSteps; step++) {
+                    steps.write(etat.pushDir | PUSH_STEP);
+                }
+            }
+            precedent = etat;
+        }
+        return steps.toByteArray();
+    }
+
+    /**
+     * La solution au format LURD (ex: "ulLdR") : une lettre par pas,
+     * minuscule pour un déplacement, majuscule pour une poussée.
+     * @param runLength 'true' : les répétitions sont comptées (ex: "3rU" pour "rrrU")
+     */
+    public static String toLurd(Etat etatFinal, boolean runLength) {
+        byte[] steps = buildSteps(etatFinal);
+        StringBuilder lurd = new StringBuilder(steps.length);
+        for (int i = 0; i < steps.length; ) {
+            char letter = LURD[steps[i] & 3];
+            if ((steps[i] & PUSH_STEP) != 0) {
+                letter = Character.toUpperCase(letter);
+            }
+            int run = 1;
+            while (runLength && i + run < steps.length && steps[i + run] == steps[i]) {
+                run++;
+            }
+            if (run > 1) {
+                lurd.append(run);
+            }
+            lurd.append(letter);
+            i += run;
+        }
+        return lurd.toString();
     }
 
     /**
      * Méthode utilitaire pour afficher la grille d'un état.
+     * La grille est écrite en un seul appel (voir writeBoard).
      */
     public static void displayBoard(char[][] board) {
+        StringBuilder text = new StringBuilder(board.length * (board[0].length + 1));
         for (char[] row : board) {
-            for (char cell : row) {
-                System.out.print(cell);
-            }
-            System.out.println();
+            text.append(row).append('\n');
+        }
+        System.out.print(text);
+    }
+
+    /**
+     * Écrit la grille d'un état dans un flux tamponné (une ligne = un seul
+     * write), pour afficher de nombreuses grilles sans écrire case par case.
+     */
+    public static void writeBoard(PrintWriter out, char[][] board) {
+        for (char[] row : board) {
+            out.write(row);
+            out.write('\n');
         }
     }
 
@@ -124,19 +398,27 @@ public class SokobanSolver {
     }
 
     /**
-     * Vérifie si un caractère est un symbole de caisse (a,b,c,d,A,B,C,D).
+     * Vérifie si un caractère est un symbole de caisse (a,b,c,d,A,B,C,D,$,*).
      */
     public static boolean isBoxSymbol(char c) {
         return ALL_BOX_SYMBOLS.contains(c);
     }
 
+    /**
+     * Vérifie si un caractère est une caisse posée sur une cible (A,B,C,D,*).
+     */
+    public static boolean isBoxOnTarget(char c) {
+        return c == BOX_ON_TARGET || (c >= 'A' && c <= 'D');
+    }
+
     /**
      * Retourne le nom de base (minuscule) d'une caisse.
-     * 'A' -> 'a', 'b' -> 'b'.
+     * 'A' -> 'a', 'b' -> 'b', '*' -> '$'.
      */
     public static char getBoxName(char c) {
         if (c >= 'a' && c <= 'd') return c;
         if (c >= 'A' && c <= 'D') return SokobanSolver.BOX_TO_TARGET_MAP.get(c);
+        if (c == BOX || c == BOX_ON_TARGET) return BOX;
         return ' '; // Ne devrait pas arriver
     }
 }
\ No newline at end of file
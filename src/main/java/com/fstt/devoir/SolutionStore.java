@@ -0,0 +1,291 @@
+package com.fstt.devoir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+
+/**
+ * Base persistante des solutions (SolverOptions.solutionStore) : un niveau
+ * déjà résolu, même tourné ou retourné, est relu au lieu d'être recherché.
+ * * Clé d'un niveau : sa grille complète (murs, cibles, caisses, joueur) est
+ * écrite dans chacune des 8 symétries du carré (rotations et miroirs) ; la
+ * plus petite de ces 8 écritures est la forme CANONIQUE, dont le hachage
+ * SHA-256 (16 octets) identifie le niveau. Un niveau et ses copies tournées
+ * ou retournées ont donc la même clé.
+ * * Solution : la suite des pas du joueur (déplacements et poussées), un
+ * octet par pas (SokobanSolver.buildSteps), exprimée dans
+ * l'orientation canonique et remise dans celle de l'appelant à la lecture.
+ * * Fichier : en-tête (MAGIC) puis des enregistrements ajoutés en fin de
+ * fichier, jamais modifiés : hachage, poussées, nombre de pas, pas. Un index
+ * en mémoire (hachage -> position) est construit à l'ouverture ; les
+ * enregistrements sont lus par projection en mémoire (FileChannel.map). Un
+ * enregistrement incomplet en fin de fichier (arrêt brutal) est ignoré.
+ * Le fichier est limité à 2 Go (une seule projection).
+ * * Seules les solutions optimales (prouvées) y sont rangées.
+ * Utilisable depuis plusieurs threads (lots en parallèle).
+ */
+public final class SolutionStore {
+
+    private static final int MAGIC = 0x534F4C31; // "SOL1"
+    private static final int HEADER_BYTES = 4;
+    private static final int HASH_BYTES = 16;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final Map<String, Long> index = new HashMap<>(); // Hachage -> position de l'enregistrement
+    private MappedByteBuffer mapped; // Projection des 'mappedBytes' premiers octets
+    private long mappedBytes;
+    private long size;               // Taille du fichier (fin des enregistrements complets)
+    private long hits;
+
+    private SolutionStore(Path path) throws IOException {
+        this.path = path;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (channel.size() < HEADER_BYTES) {
+            channel.truncate(0);
+            channel.write(ByteBuffer.allocate(HEADER_BYTES).putInt(0, MAGIC), 0);
+            size = HEADER_BYTES;
+            return;
+        }
+        remap(channel.size());
+        if (mapped.getInt(0) != MAGIC) {
+            channel.close();
+            throw new IOException("Base de solutions : format inconnu (" + path + ")");
+        }
+        long offset = HEADER_BYTES;
+        while (offset + HASH_BYTES + 8 <= mappedBytes) {
+            int steps = mapped.getInt((int) offset + HASH_BYTES + 4);
+            long end = offset + HASH_BYTES + 8 + steps;
+            if (steps < 0 || end > mappedBytes) {
+                break; // Enregistrement incomplet
+            }
+            byte[] hash = new byte[HASH_BYTES];
+            mapped.get((int) offset, hash);
+            index.put(HexFormat.of().formatHex(hash), offset);
+            offset = end;
+        }
+        size = offset;
+        channel.truncate(size); // Les ajouts suivants reprennent après le dernier enregistrement complet
+    }
+
+    /**
+     * Ouvre (ou crée) une base de solutions.
+     * @throws UncheckedIOException Si le fichier est illisible
+     */
+    public static SolutionStore open(String path) {
+        try {
+            Path file = Path.of(path);
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            return new SolutionStore(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Base de solutions : erreur sur " + path, e);
+        }
+    }
+
+    /**
+     * Solution connue du niveau, rejouée depuis son état initial.
+     * @return L'état final (avec sa chaîne de 'parent'), ou 'null' si le niveau n'est pas connu
+     */
+    Etat find(Level level) {
+        Canonical canonical = canonicalize(level);
+        byte[] steps;
+        synchronized (this) {
+            Long offset = index.get(canonical.hash);
+            if (offset == null) {
+                return null;
+            }
+            if (offset >= mappedBytes) {
+                remap(size);
+            }
+            int base = (int) (long) offset;
+            steps = new byte[mapped.getInt(base + HASH_BYTES + 4)];
+            mapped.get(base + HASH_BYTES + 8, steps);
+            hits++;
+        }
+        // Remettre chaque pas dans l'orientation de l'appelant
+        int[] toCaller = new int[4];
+        for (int d = 0; d < 4; d++) {
+            toCaller[mapDir(canonical.symmetry, d)] = d;
+        }
+        return replay(level, steps, toCaller);
+    }
+
+    /**
+     * Range la solution (optimale) d'un niveau, si elle n'y est pas déjà.
+     */
+    void store(Level level, Etat goal) {
+        Canonical canonical = canonicalize(level);
+        byte[] steps = SokobanSolver.buildSteps(goal);
+        ByteBuffer record = ByteBuffer.allocate(HASH_BYTES + 8 + steps.length);
+        record.put(HexFormat.of().parseHex(canonical.hash));
+        record.putInt(goal.g_cost).putInt(steps.length);
+        for (byte step : steps) {
+            record.put((byte) (mapDir(canonical.symmetry, step & 3) | (step & SokobanSolver.PUSH_STEP)));
+        }
+        record.flip();
+        synchronized (this) {
+            if (index.containsKey(canonical.hash)) {
+                return;
+            }
+            try {
+                long offset = size;
+                while (record.hasRemaining()) {
+                    channel.write(record, size + record.position());
+                }
+                size += record.limit();
+                index.put(canonical.hash, offset);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Base de solutions : erreur d'écriture sur " + path, e);
+            }
+        }
+    }
+
+    public synchronized int size() {
+        return index.size();
+    }
+
+    public synchronized long hits() {
+        return hits;
+    }
+
+    public synchronized void close() throws IOException {
+        channel.close();
+        mapped = null;
+    }
+
+    /**
+     * Projette les 'bytes' premiers octets du fichier (après des ajouts).
+     */
+    private void remap(long bytes) {
+        try {
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, bytes);
+            mappedBytes = bytes;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Base de solutions : erreur de lecture sur " + path, e);
+        }
+    }
+
+    /**
+     * Rejoue les pas depuis l'état initial : chaque poussée crée un état
+     * (Etat.applyPush), les déplacements ne font que suivre le joueur.
+     */
+    private static Etat replay(Level level, byte[] steps, int[] toCaller) {
+        Etat etat = new Etat(level);
+        int player = level.initialPlayer;
+        for (byte step : steps) {
+            int d = toCaller[step & 3];
+            player += level.dirOffsets[d];
+            if ((step & SokobanSolver.PUSH_STEP) != 0) {
+                etat = etat.applyPush(etat.boxIndexAt(player), d);
+            }
+        }
+        return etat;
+    }
+
+    /**
+     * Image de la direction 'd' (SokobanSolver.DIRS) par la symétrie 's' (voir transform).
+     */
+    static int mapDir(int s, int d) {
+        int dr = SokobanSolver.DIRS[d][0], dc = SokobanSolver.DIRS[d][1];
+        if ((s & 4) != 0) {
+            int t = dr;
+            dr = dc;
+            dc = t;
+        }
+        if ((s & 1) != 0) {
+            dr = -dr;
+        }
+        if ((s & 2) != 0) {
+            dc = -dc;
+        }
+        for (int k = 0; k < 4; k++) {
+            if (SokobanSolver.DIRS[k][0] == dr && SokobanSolver.DIRS[k][1] == dc) {
+                return k;
+            }
+        }
+        throw new IllegalStateException();
+    }
+
+    /**
+     * Forme canonique d'un niveau : hachage et symétrie qui y mène.
+     */
+    private static final class Canonical {
+        final String hash;
+        final int symmetry;
+
+        Canonical(String hash, int symmetry) {
+            this.hash = hash;
+            this.symmetry = symmetry;
+        }
+    }
+
+    /**
+     * Écrit la grille dans les 8 symétries et garde la plus petite écriture.
+     */
+    private static Canonical canonicalize(Level level) {
+        char[] base = new char[level.cells];
+        for (int cell = 0; cell < level.cells; cell++) {
+            base[cell] = level.isWall(cell) ? '#' : level.isTarget(cell) ? '.' : ' ';
+        }
+        for (int i = 0; i < level.initialBoxes.length; i++) {
+            int cell = level.initialBoxes[i];
+            base[cell] = level.isTarget(cell) ? SokobanSolver.BOX_TO_TARGET_MAP.get(level.boxNames[i]) : level.boxNames[i];
+        }
+        base[level.initialPlayer] = level.isTarget(level.initialPlayer) ? '+' : '@';
+
+        String best = null;
+        int bestSymmetry = 0;
+        for (int s = 0; s < 8; s++) {
+            String text = transform(base, level.rows, level.cols, s);
+            if (best == null || text.compareTo(best) < 0) {
+                best = text;
+                bestSymmetry = s;
+            }
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(best.getBytes(StandardCharsets.UTF_8));
+            return new Canonical(HexFormat.of().formatHex(hash, 0, HASH_BYTES), bestSymmetry);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e); // SHA-256 est toujours disponible
+        }
+    }
+
+    /**
+     * Grille transformée par la symétrie 's' : bit 4 transposition (lignes et
+     * colonnes échangées), puis bit 1 miroir haut/bas, bit 2 miroir gauche/droite.
+     * Les dimensions sont écrites en tête : deux grilles de formes différentes
+     * ne se confondent pas.
+     */
+    private static String transform(char[] grid, int rows, int cols, int s) {
+        boolean transpose = (s & 4) != 0;
+        int height = transpose ? cols : rows, width = transpose ? rows : cols;
+        StringBuilder text = new StringBuilder(height * (width + 1) + 12);
+        text.append(height).append('x').append(width).append('\n');
+        for (int r = 0; r < height; r++) {
+            for (int c = 0; c < width; c++) {
+                // Case d'origine de la case (r, c) de la grille transformée
+                int tr = (s & 1) != 0 ? height - 1 - r : r;
+                int tc = (s & 2) != 0 ? width - 1 - c : c;
+                int cell = transpose ? tc * cols + tr : tr * cols + tc;
+                text.append(grid[cell]);
+            }
+            text.append('\n');
+        }
+        return text.toString();
+    }
+}
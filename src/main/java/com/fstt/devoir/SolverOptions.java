@@ -0,0 +1,169 @@
+package com.fstt.devoir;
+
+/**
+ * Options de résolution passées à SokobanSolver.solve().
+ * * Les valeurs par défaut reproduisent le comportement d'origine (A*).
+ */
+public class SolverOptions {
+
+    /**
+     * Moteur de recherche utilisé.
+     */
+    public enum Algorithm {
+        // A* classique : optimal, mémoire non bornée (openList + closedList)
+        ASTAR,
+        // IDA* : optimal, mémoire bornée par 'memoryBudgetBytes'
+        IDA_STAR,
+        // HDA* : A* optimal réparti sur 'threads' threads
+        PARALLEL_ASTAR,
+        // A* bidirectionnel : poussées depuis le départ, tirées depuis les cibles
+        BIDIRECTIONAL,
+        // A* en mémoire externe : frontière et états développés sur disque ('scratchDir')
+        EXTERNAL_ASTAR,
+        // A* pondéré réparateur (ARA*) : une solution rapide, améliorée jusqu'à l'optimum
+        // ou jusqu'à la limite de temps ('anytimeWeight', 'anytimeWeightStep')
+        ANYTIME
+    }
+
+    public Algorithm algorithm = Algorithm.ASTAR;
+
+    // Budget mémoire (en octets) de la table de transposition d'IDA*,
+    // et des séries triées en mémoire de la recherche externe
+    public long memoryBudgetBytes = 64L << 20;
+
+    // Dossier de travail de la recherche externe (un sous-dossier par résolution,
+    // supprimé à la fin)
+    public String scratchDir = System.getProperty("java.io.tmpdir");
+
+    // Moteur ANYTIME : poids initial de h (f = g + w·h) et baisse du poids à
+    // chaque tour, jusqu'à 1
+    public double anytimeWeight = 3.0;
+    public double anytimeWeightStep = 0.5;
+
+    // Nombre de threads du moteur parallèle
+    public int threads = Runtime.getRuntime().availableProcessors();
+
+    // Caisses interchangeables : les noms (a, b...) de la grille sont ignorés,
+    // deux états qui ne diffèrent que par une permutation des caisses sont confondus.
+    // (Toujours le cas pour les caisses sans nom '$' / '*'.)
+    public boolean unlabeledBoxes = false;
+
+    // Heuristique complétée par la base de motifs des paires de caisses
+    // (PatternDatabase), sauvegardée dans 'patternCacheDir' si non null
+    public boolean patternDatabase = false;
+    public String patternCacheDir = null;
+
+    // Macro-poussées : une caisse poussée dans un tunnel est poussée jusqu'à
+    // la sortie en un seul successeur (g augmente du nombre réel de poussées)
+    public boolean tunnelMacros = false;
+
+    // Élagage par corral PI : quand le joueur ne peut pas entrer dans une zone
+    // qu'il faudra ranger, seules les poussées vers cette zone sont générées
+    // (voir CorralPruning) ; la solution reste optimale
+    public boolean corralPruning = false;
+
+    // Niveaux déjà analysés (grille et options d'analyse), réutilisés d'une
+    // résolution à l'autre ; null : chaque grille est réanalysée
+    public LevelCache levelCache = LevelCache.SHARED;
+
+    // Base persistante des solutions : un niveau déjà résolu (même tourné ou
+    // retourné) y est relu au lieu d'être recherché ; null : pas de base
+    public SolutionStore solutionStore = null;
+
+    // Limites d'une résolution (0 = sans limite) : au-delà, la recherche
+    // s'arrête et le résultat est "timeout" (voir SearchBudget).
+    // 'stateLimit' borne la mémoire : états gardés à la fois (openList +
+    // closedList). IDA* est déjà borné par 'memoryBudgetBytes' et
+    // EXTERNAL_ASTAR garde ses états sur disque : ils ne la consultent pas.
+    public long timeLimitMillis = 0;
+    public long nodeLimit = 0;
+    public long stateLimit = 0;
+
+    // Observateur de la recherche (progression, métriques finales), ou null
+    public SearchListener listener = null;
+
+    public SolverOptions algorithm(Algorithm algorithm) {
+        this.algorithm = algorithm;
+        return this;
+    }
+
+    public SolverOptions memoryBudgetBytes(long memoryBudgetBytes) {
+        this.memoryBudgetBytes = memoryBudgetBytes;
+        return this;
+    }
+
+    public SolverOptions scratchDir(String scratchDir) {
+        this.scratchDir = scratchDir;
+        return this;
+    }
+
+    public SolverOptions anytimeWeight(double anytimeWeight) {
+        this.anytimeWeight = anytimeWeight;
+        return this;
+    }
+
+    public SolverOptions anytimeWeightStep(double anytimeWeightStep) {
+        this.anytimeWeightStep = anytimeWeightStep;
+        return this;
+    }
+
+    public SolverOptions threads(int threads) {
+        this.threads = threads;
+        return this;
+    }
+
+    public SolverOptions unlabeledBoxes(boolean unlabeledBoxes) {
+        this.unlabeledBoxes = unlabeledBoxes;
+        return this;
+    }
+
+    public SolverOptions patternDatabase(boolean patternDatabase) {
+        this.patternDatabase = patternDatabase;
+        return this;
+    }
+
+    public SolverOptions patternCacheDir(String patternCacheDir) {
+        this.patternCacheDir = patternCacheDir;
+        return this;
+    }
+
+    public SolverOptions tunnelMacros(boolean tunnelMacros) {
+        this.tunnelMacros = tunnelMacros;
+        return this;
+    }
+
+    public SolverOptions corralPruning(boolean corralPruning) {
+        this.corralPruning = corralPruning;
+        return this;
+    }
+
+    public SolverOptions levelCache(LevelCache levelCache) {
+        this.levelCache = levelCache;
+        return this;
+    }
+
+    public SolverOptions solutionStore(SolutionStore solutionStore) {
+        this.solutionStore = solutionStore;
+        return this;
+    }
+
+    public SolverOptions timeLimitMillis(long timeLimitMillis) {
+        this.timeLimitMillis = timeLimitMillis;
+        return this;
+    }
+
+    public SolverOptions nodeLimit(long nodeLimit) {
+        this.nodeLimit = nodeLimit;
+        return this;
+    }
+
+    public SolverOptions stateLimit(long stateLimit) {
+        this.stateLimit = stateLimit;
+        return this;
+    }
+
+    public SolverOptions listener(SearchListener listener) {
+        this.listener = listener;
+        return this;
+    }
+}
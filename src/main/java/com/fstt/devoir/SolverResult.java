@@ -0,0 +1,74 @@
+package com.fstt.devoir;
+
+/**
+ * Résultat d'une résolution : l'état final et les métriques du moteur.
+ * * Retourné par SokobanSolver.solve(Level, SolverOptions), qui n'affiche rien :
+ * le lanceur par lots (BatchRunner) en tire une ligne par niveau.
+ */
+public class SolverResult {
+
+    public Etat goal;            // État final (gagnant), 'null' si aucune solution
+    public String engine;        // Nom du moteur, pour l'affichage (ex: "A*")
+    public String details = "";  // Précisions sur les nœuds explorés (ex: débit)
+    public long exploredNodes;   // Métrique: Nombre de nœuds explorés
+    public long prunedPushes;    // Métrique: Nombre de poussées élaguées (impasses)
+    public long millis;          // Métrique: Temps de résolution
+    public boolean timedOut;     // Limite de temps ou de nœuds atteinte (SearchBudget)
+    public SearchMetrics metrics = new SearchMetrics(); // Compteurs détaillés
+    public long[] progress = new long[0]; // Paires (ms, nœuds explorés), environ toutes les 100 ms
+    // Moteur ANYTIME : triplets (ms, poussées, borne inférieure prouvée) de chaque solution améliorée
+    public long[] solutions = new long[0];
+
+    /**
+     * Débit moyen de la recherche.
+     */
+    public long nodesPerSecond() {
+        return millis > 0 ? exploredNodes * 1000 / millis : exploredNodes;
+    }
+
+    /**
+     * Temps jusqu'à la première solution (ms), -1 si elle n'est pas relevée
+     * (seul le moteur ANYTIME publie des solutions intermédiaires).
+     */
+    public long firstSolutionMillis() {
+        return solutions.length > 0 ? solutions[0] : -1;
+    }
+
+    /**
+     * La solution au format LURD (voir SokobanSolver.toLurd), 'null' sans solution.
+     * @param runLength 'true' : répétitions comptées (ex: "3rU")
+     */
+    public String lurd(boolean runLength) {
+        return goal != null ? SokobanSolver.toLurd(goal, runLength) : null;
+    }
+
+    public boolean isSolved() {
+        return goal != null;
+    }
+
+    /**
+     * Statut pour les lots : "solved", "unsolved" (insoluble) ou "timeout".
+     */
+    public String status() {
+        return isSolved() ? "solved" : timedOut ? "timeout" : "unsolved";
+    }
+
+    /**
+     * Affiche les métriques (format historique de SokobanSolver.solve).
+     */
+    public void print() {
+        if (goal != null && goal.g_cost == 0) {
+            System.out.println("Niveau déjà résolu!");
+            return;
+        }
+        System.out.println("Nombre de nœuds explorés par " + engine + ": " + exploredNodes + details);
+        System.out.println("Nombre de poussées élaguées (impasses): " + prunedPushes);
+        if (metrics.corralNanos > 0) {
+            System.out.println("Corrals PI : " + metrics.corralPruned + " poussées écartées, "
+                    + metrics.corralDeadlocks + " états sans issue (" + metrics.corralNanos / 1_000_000 + " ms)");
+        }
+        if (timedOut) {
+            System.out.println("Recherche interrompue : limite de temps ou de nœuds atteinte");
+        }
+    }
+}
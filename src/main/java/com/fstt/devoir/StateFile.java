@@ -0,0 +1,226 @@
+package com.fstt.devoir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Fichier d'états de la recherche externe (ExternalSearch) : une suite
+ * d'enregistrements de taille fixe, chacun étant la clé compacte d'un état
+ * (Etat.getUniqueKey, 'words' mots de 8 octets).
+ * * Écriture : ajout en fin de fichier par un tampon de BUFFER_BYTES octets.
+ * Lecture : le fichier terminé est projeté en mémoire (FileChannel.map),
+ * par segments de moins de 2 Go contenant un nombre entier d'enregistrements.
+ * * Les octets écrits et lus sont comptés dans les SearchMetrics de la recherche.
+ */
+final class StateFile {
+
+    private static final int BUFFER_BYTES = 1 << 16;
+    private static final long SEGMENT_BYTES = 1L << 30;
+
+    final Path path;
+    private final int words;
+    private final SearchMetrics metrics;
+
+    private FileChannel channel; // Ouvert tant que le fichier est en écriture
+    private ByteBuffer buffer;
+    private long count;
+
+    private MappedByteBuffer[] segments; // Projection en lecture (voir map)
+    private long recordsPerSegment;
+
+    StateFile(Path path, int words, SearchMetrics metrics) {
+        this.path = path;
+        this.words = words;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Nombre d'enregistrements (écrits jusqu'ici).
+     */
+    long size() {
+        return count;
+    }
+
+    void append(long[] key) throws IOException {
+        append(key, 0);
+    }
+
+    /**
+     * Ajoute l'enregistrement qui commence à 'records[offset]'.
+     */
+    void append(long[] records, int offset) throws IOException {
+        if (buffer == null) {
+            channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            buffer = ByteBuffer.allocateDirect(BUFFER_BYTES / (words * 8) * (words * 8));
+        }
+        if (buffer.remaining() < words * 8) {
+            flush();
+        }
+        for (int w = 0; w < words; w++) {
+            buffer.putLong(records[offset + w]);
+        }
+        count++;
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        metrics.bytesWritten += buffer.remaining();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Termine l'écriture (vide le tampon, ferme le fichier) et projette
+     * le fichier en mémoire pour la lecture.
+     */
+    void map() throws IOException {
+        if (channel != null) {
+            flush();
+            channel.close();
+            channel = null;
+            buffer = null;
+        }
+        long recordBytes = words * 8L;
+        recordsPerSegment = SEGMENT_BYTES / recordBytes;
+        if (count == 0) {
+            segments = new MappedByteBuffer[0]; // Rien n'a été écrit : pas de fichier
+            return;
+        }
+        segments = new MappedByteBuffer[(int) ((count + recordsPerSegment - 1) / recordsPerSegment)];
+        try (FileChannel in = FileChannel.open(path, StandardOpenOption.READ)) {
+            for (int s = 0; s < segments.length; s++) {
+                long first = s * recordsPerSegment;
+                long records = Math.min(recordsPerSegment, count - first);
+                segments[s] = in.map(FileChannel.MapMode.READ_ONLY, first * recordBytes, records * recordBytes);
+            }
+        }
+    }
+
+    /**
+     * Lit l'enregistrement 'index' dans 'into[offset..]' (fichier projeté, voir map).
+     */
+    void read(long index, long[] into, int offset) {
+        MappedByteBuffer segment = segments[(int) (index / recordsPerSegment)];
+        int base = (int) (index % recordsPerSegment) * words * 8;
+        for (int w = 0; w < words; w++) {
+            into[offset + w] = segment.getLong(base + w * 8);
+        }
+        metrics.bytesRead += words * 8L;
+    }
+
+    /**
+     * Recherche dichotomique d'une clé dans un fichier TRIÉ et projeté.
+     * @param scratch Tableau de travail de 'words' mots
+     */
+    boolean contains(long[] key, long[] scratch) {
+        long low = 0, high = count - 1;
+        while (low <= high) {
+            long mid = (low + high) >>> 1;
+            read(mid, scratch, 0);
+            int cmp = compare(scratch, 0, key, 0, words);
+            if (cmp == 0) {
+                return true;
+            }
+            if (cmp < 0) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Supprime le fichier (une projection encore ouverte reste valide
+     * jusqu'à sa libération par le ramasse-miettes).
+     */
+    void delete() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+        buffer = null;
+        segments = null;
+        Files.deleteIfExists(path);
+    }
+
+    /**
+     * Ordre des enregistrements : mot par mot, comme des 'long' signés.
+     */
+    static int compare(long[] a, int ai, long[] b, int bi, int words) {
+        for (int w = 0; w < words; w++) {
+            int cmp = Long.compare(a[ai + w], b[bi + w]);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Trie en place les 'count' premiers enregistrements de 'records'
+     * (rangés à plat, 'words' mots chacun) et retire les doublons.
+     * @return Le nombre d'enregistrements distincts (en tête de 'records')
+     */
+    static int sortUnique(long[] records, int count, int words) {
+        if (words == 1) {
+            Arrays.sort(records, 0, count);
+        } else {
+            quickSort(records, 0, count - 1, words, new long[words]);
+        }
+        int unique = 0;
+        for (int i = 0; i < count; i++) {
+            if (unique == 0 || compare(records, i * words, records, (unique - 1) * words, words) != 0) {
+                System.arraycopy(records, i * words, records, unique * words, words);
+                unique++;
+            }
+        }
+        return unique;
+    }
+
+    /**
+     * Tri rapide des enregistrements 'low'..'high' (bornes incluses) ;
+     * la récursion porte sur la plus petite moitié (profondeur en O(log n)).
+     */
+    private static void quickSort(long[] a, int low, int high, int words, long[] pivot) {
+        while (low < high) {
+            System.arraycopy(a, ((low + high) >>> 1) * words, pivot, 0, words);
+            int i = low, j = high;
+            while (i <= j) {
+                while (compare(a, i * words, pivot, 0, words) < 0) {
+                    i++;
+                }
+                while (compare(a, j * words, pivot, 0, words) > 0) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(a, i++, j--, words);
+                }
+            }
+            if (j - low < high - i) {
+                quickSort(a, low, j, words, pivot);
+                low = i;
+            } else {
+                quickSort(a, i, high, words, pivot);
+                high = j;
+            }
+        }
+    }
+
+    private static void swap(long[] a, int i, int j, int words) {
+        for (int w = 0; w < words; w++) {
+            long t = a[i * words + w];
+            a[i * words + w] = a[j * words + w];
+            a[j * words + w] = t;
+        }
+    }
+}
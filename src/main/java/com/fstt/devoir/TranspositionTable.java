@@ -0,0 +1,92 @@
+package com.fstt.devoir;
+
+import java.util.Arrays;
+
+/**
+ * Table de transposition de taille FIXE pour IDA*.
+ * * Mémorise, pour les états déjà visités, le plus petit coût g avec lequel
+ * ils ont été atteints pendant l'itération courante. La taille est calculée
+ * une fois pour toutes à partir d'un budget mémoire : la table ne grandit
+ * jamais, une entrée est remplacée quand son paquet (bucket) est plein.
+ * * Politique de remplacement (paquets de WAYS entrées) :
+ * 1. une entrée vide ;
+ * 2. sinon une entrée d'une itération précédente ;
+ * 3. sinon l'entrée de plus grand g (la plus proche des feuilles,
+ *    donc celle qui évite le moins de travail).
+ * * Perdre une entrée ne fait que réduire l'élagage : le résultat reste optimal.
+ */
+class TranspositionTable {
+
+    private static final int WAYS = 4; // Entrées par paquet
+
+    private final int keyWords;
+    private final int bucketMask;
+    private final long[] keys;     // entries * keyWords (premier mot à 0 = entrée vide)
+    private final int[] costs;     // g mémorisé
+    private final int[] iterations; // Itération d'IDA* qui a écrit l'entrée
+
+    public TranspositionTable(int keyWords, long budgetBytes) {
+        this.keyWords = keyWords;
+        long entryBytes = keyWords * 8L + 4 + 4;
+        long buckets = Math.max(1, budgetBytes / (entryBytes * WAYS));
+        // Nombre de paquets : la plus grande puissance de 2 qui tient dans le budget
+        int bucketCount = Integer.highestOneBit((int) Math.min(buckets, 1 << 26));
+        this.bucketMask = bucketCount - 1;
+        int entries = bucketCount * WAYS;
+        this.keys = new long[entries * keyWords];
+        this.costs = new int[entries];
+        this.iterations = new int[entries];
+    }
+
+    public int capacity() {
+        return costs.length;
+    }
+
+    /**
+     * Indique si l'état peut être élagué : il a déjà été atteint pendant
+     * cette itération avec un coût g inférieur ou égal (sous-arbre déjà
+     * exploré avec au moins autant de budget, ou cycle sur le chemin courant).
+     * Sinon, mémorise (key, g) pour cette itération.
+     * @param hash Hachage de la clé (Etat.getZobristHash) : choisit le paquet
+     * @return 'true' si l'état doit être élagué
+     */
+    public boolean checkAndStore(long[] key, long hash, int g, int iteration) {
+        int first = ((int) hash & bucketMask) * WAYS;
+        int victim = -1;
+        for (int e = first; e < first + WAYS; e++) {
+            int base = e * keyWords;
+            if (keys[base] != 0 && Arrays.equals(keys, base, base + keyWords, key, 0, keyWords)) {
+                if (iterations[e] == iteration && costs[e] <= g) {
+                    return true;
+                }
+                costs[e] = g;
+                iterations[e] = iteration;
+                return false;
+            }
+            if (victim < 0 || isBetterVictim(e, victim, iteration)) {
+                victim = e;
+            }
+        }
+        System.arraycopy(key, 0, keys, victim * keyWords, keyWords);
+        costs[victim] = g;
+        iterations[victim] = iteration;
+        return false;
+    }
+
+    /**
+     * Vrai si l'entrée 'e' est préférable à 'victim' pour être remplacée.
+     */
+    private boolean isBetterVictim(int e, int victim, int iteration) {
+        boolean emptyE = keys[e * keyWords] == 0;
+        boolean emptyV = keys[victim * keyWords] == 0;
+        if (emptyE != emptyV) {
+            return emptyE;
+        }
+        boolean oldE = iterations[e] != iteration;
+        boolean oldV = iterations[victim] != iteration;
+        if (oldE != oldV) {
+            return oldE;
+        }
+        return costs[e] > costs[victim];
+    }
+}
@@ -0,0 +1,215 @@
+package com.fstt.devoir;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lecteur de collections de niveaux au format texte standard (XSB / .sok).
+ * * Symboles : '#' mur, ' ' (ou '-', '_') sol, '.' cible, '$' caisse,
+ * '*' caisse sur cible, '@' joueur, '+' joueur sur cible.
+ * * Lecture en flux : les niveaux sont lus un par un (next()), une collection
+ * de plusieurs milliers de niveaux n'est jamais chargée en entier.
+ * * Toute ligne qui n'est pas une ligne de grille sépare deux niveaux.
+ * Le nom d'un niveau est la ligne "Title: ..." qui le suit, sinon le dernier
+ * commentaire (ex: "; 12") qui le précède.
+ */
+class XsbReader implements Closeable {
+
+    private static final String BOARD_SYMBOLS = "#@+$*.-_ ";
+
+    private final BufferedReader reader;
+    private String pendingLine;  // Ligne lue en avance (fin du niveau précédent)
+    private String lastComment;  // Dernier commentaire vu avant la grille
+    private int count = 0;       // Nombre de niveaux lus
+
+    public XsbReader(Reader in) {
+        this.reader = in instanceof BufferedReader ? (BufferedReader) in : new BufferedReader(in);
+    }
+
+    /**
+     * Ouvre un fichier, ou l'entrée standard si 'path' vaut "-".
+     */
+    public static XsbReader open(String path) throws IOException {
+        if (path.equals("-")) {
+            return new XsbReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+        }
+        return new XsbReader(Files.newBufferedReader(Path.of(path), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Lit le niveau suivant.
+     * @return Le niveau, ou 'null' à la fin du flux.
+     */
+    public Entry next() throws IOException {
+        List<String> board = new ArrayList<>();
+        String line;
+        while ((line = readLine()) != null) {
+            if (isBoardLine(line)) {
+                board.add(line);
+            } else if (!board.isEmpty()) {
+                pendingLine = line; // Fin de la grille
+                break;
+            } else if (!line.isBlank()) {
+                lastComment = line.strip();
+            }
+        }
+        if (board.isEmpty()) {
+            return null;
+        }
+
+        String name = lastComment;
+        lastComment = null;
+        if (pendingLine != null && pendingLine.strip().startsWith("Title:")) {
+            name = pendingLine.strip();
+            pendingLine = null;
+        }
+        count++;
+        return new Entry(count, cleanName(name, count), board);
+    }
+
+    private String readLine() throws IOException {
+        if (pendingLine != null) {
+            String line = pendingLine;
+            pendingLine = null;
+            return line;
+        }
+        return reader.readLine();
+    }
+
+    /**
+     * Une ligne de grille ne contient que des symboles XSB, dont au moins un mur.
+     */
+    private static boolean isBoardLine(String line) {
+        if (line.indexOf('#') < 0) {
+            return false;
+        }
+        for (int i = 0; i < line.length(); i++) {
+            if (BOARD_SYMBOLS.indexOf(line.charAt(i)) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String cleanName(String name, int number) {
+        if (name == null) {
+            return "Niveau " + number;
+        }
+        if (name.startsWith("Title:")) {
+            name = name.substring("Title:".length());
+        } else if (name.startsWith(";")) {
+            name = name.substring(1);
+        }
+        name = name.strip();
+        return name.isEmpty() ? "Niveau " + number : name;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    /**
+     * Un niveau lu : numéro (à partir de 1), nom et lignes XSB brutes.
+     */
+    static class Entry {
+        public final int number;
+        public final String name;
+        public final List<String> lines;
+
+        Entry(int number, String name, List<String> lines) {
+            this.number = number;
+            this.name = name;
+            this.lines = lines;
+        }
+
+        /**
+         * Convertit la grille XSB dans les symboles de SokobanSolver.
+         * Les lignes sont complétées à la même largeur ; le sol à l'extérieur
+         * des murs (accessible depuis le bord) devient du mur. Les caisses
+         * restent sans nom ('$', '*') : elles sont interchangeables.
+         */
+        public String[] toGrid() {
+            int rows = lines.size();
+            int cols = 0;
+            for (String line : lines) {
+                cols = Math.max(cols, line.length());
+            }
+            char[][] xsb = new char[rows][cols];
+            for (int r = 0; r < rows; r++) {
+                String line = lines.get(r);
+                for (int c = 0; c < cols; c++) {
+                    xsb[r][c] = c < line.length() ? line.charAt(c) : ' ';
+                }
+            }
+
+            boolean[][] outside = markOutside(xsb);
+            String[] grid = new String[rows];
+            for (int r = 0; r < rows; r++) {
+                StringBuilder row = new StringBuilder(cols);
+                for (int c = 0; c < cols; c++) {
+                    char symbol = xsb[r][c];
+                    if (symbol == '#' || outside[r][c]) {
+                        row.append(SokobanSolver.WALL);
+                    } else if (symbol == '.') {
+                        row.append(SokobanSolver.TARGET);
+                    } else if (symbol == '@') {
+                        row.append(SokobanSolver.PLAYER);
+                    } else if (symbol == '+') {
+                        row.append(SokobanSolver.PLAYER_ON_TARGET);
+                    } else if (symbol == '$') {
+                        row.append(SokobanSolver.BOX);
+                    } else if (symbol == '*') {
+                        row.append(SokobanSolver.BOX_ON_TARGET);
+                    } else {
+                        row.append(SokobanSolver.FLOOR);
+                    }
+                }
+                grid[r] = row.toString();
+            }
+            return grid;
+        }
+
+        /**
+         * Marque le sol relié au bord de la grille sans traverser de mur.
+         */
+        private static boolean[][] markOutside(char[][] xsb) {
+            int rows = xsb.length, cols = xsb[0].length;
+            boolean[][] outside = new boolean[rows][cols];
+            ArrayDeque<int[]> queue = new ArrayDeque<>();
+            for (int r = 0; r < rows; r++) {
+                for (int c = 0; c < cols; c++) {
+                    boolean border = r == 0 || c == 0 || r == rows - 1 || c == cols - 1;
+                    if (border && isOutsideFloor(xsb[r][c])) {
+                        outside[r][c] = true;
+                        queue.add(new int[]{r, c});
+                    }
+                }
+            }
+            while (!queue.isEmpty()) {
+                int[] cell = queue.poll();
+                for (int[] dir : SokobanSolver.DIRS) {
+                    int r = cell[0] + dir[0], c = cell[1] + dir[1];
+                    if (SokobanSolver.isValid(r, c, rows, cols) && !outside[r][c] && isOutsideFloor(xsb[r][c])) {
+                        outside[r][c] = true;
+                        queue.add(new int[]{r, c});
+                    }
+                }
+            }
+            return outside;
+        }
+
+        private static boolean isOutsideFloor(char symbol) {
+            return symbol == ' ' || symbol == '-' || symbol == '_';
+        }
+    }
+}